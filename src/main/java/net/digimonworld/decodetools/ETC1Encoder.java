@@ -0,0 +1,335 @@
+package net.digimonworld.decodetools;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Encodes images into ETC1 and ETC1A4, as defined in the OpenGL standard. See
+ * {@link}https://www.khronos.org/registry/gles/extensions/OES/OES_compressed_ETC1_RGB8_texture.txt}
+ * <p>
+ * The 4x4 blocks are stored in groups of 2x2 blocks, in the order {@link PixelFormatDecoder} reads them. Rows of those
+ * groups get encoded in parallel.
+ * </p>
+ */
+public class ETC1Encoder {
+    /**
+     * The amount of base colors that get tried around the average color of each half block.
+     */
+    public enum Quality {
+        /** Only the average color. */
+        FAST(0),
+        /** Every quantized color within one step of the average color. */
+        MEDIUM(1),
+        /** Every quantized color within two steps of the average color. */
+        EXHAUSTIVE(2);
+        
+        private final int radius;
+        
+        private Quality(int radius) {
+            this.radius = radius;
+        }
+    }
+    
+    // the order of the modifiers in the offset table mapped to their pixel index bits, msb << 1 | lsb
+    private static final int[] MODIFIER_BITS = new int[] { 0b11, 0b10, 0b00, 0b01 };
+    
+    // pixel ids of the two half blocks, id = x * 4 + y, for both values of the flip bit
+    private static final int[][][] HALF_BLOCKS = new int[][][] {
+            new int[][] { new int[] { 0, 1, 2, 3, 4, 5, 6, 7 }, new int[] { 8, 9, 10, 11, 12, 13, 14, 15 } },
+            new int[][] { new int[] { 0, 1, 4, 5, 8, 9, 12, 13 }, new int[] { 2, 3, 6, 7, 10, 11, 14, 15 } } };
+    
+    private ETC1Encoder() {
+    }
+    
+    /**
+     * Encodes the given ARGB pixels.
+     *
+     * @param pixels the pixels in ARGB, row by row
+     * @param width the width of the image
+     * @param height the height of the image
+     * @param alpha whether to encode ETC1A4 instead of ETC1
+     * @param quality the quality to encode with
+     * @return the encoded data
+     */
+    public static byte[] encode(int[] pixels, int width, int height, boolean alpha, Quality quality) {
+        int groupsX = (width + 7) / 8;
+        int groupsY = (height + 7) / 8;
+        byte[] output = new byte[groupsX * groupsY * 4 * (alpha ? 16 : 8)];
+        
+        ForkJoinPool.commonPool().invoke(new EncodeTask(pixels, width, height, alpha, quality, output, 0, groupsY));
+        return output;
+    }
+    
+    private static class EncodeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        
+        private final int[] pixels;
+        private final int width;
+        private final int height;
+        private final boolean alpha;
+        private final Quality quality;
+        private final byte[] output;
+        private final int startRow;
+        private final int endRow;
+        
+        public EncodeTask(int[] pixels, int width, int height, boolean alpha, Quality quality, byte[] output, int startRow, int endRow) {
+            this.pixels = pixels;
+            this.width = width;
+            this.height = height;
+            this.alpha = alpha;
+            this.quality = quality;
+            this.output = output;
+            this.startRow = startRow;
+            this.endRow = endRow;
+        }
+        
+        @Override
+        protected void compute() {
+            if (endRow - startRow > 1) {
+                int middle = (startRow + endRow) >>> 1;
+                invokeAll(new EncodeTask(pixels, width, height, alpha, quality, output, startRow, middle),
+                          new EncodeTask(pixels, width, height, alpha, quality, output, middle, endRow));
+                return;
+            }
+            
+            int groupsX = (width + 7) / 8;
+            int blockSize = alpha ? 16 : 8;
+            int[] block = new int[16];
+            
+            for (int groupX = 0; groupX < groupsX; groupX++)
+                for (int i = 0; i < 4; i++) {
+                    // blocks of a group are stored in the order 00, 10, 01, 11
+                    int blockX = groupX * 2 + (i & 1);
+                    int blockY = startRow * 2 + (i >>> 1);
+                    int offset = ((startRow * groupsX + groupX) * 4 + i) * blockSize;
+                    
+                    readBlock(blockX, blockY, block);
+                    
+                    if (alpha) {
+                        writeLong(output, offset, encodeAlpha(block));
+                        offset += 8;
+                    }
+                    writeLong(output, offset, encodeBlock(block, quality));
+                }
+        }
+        
+        private void readBlock(int blockX, int blockY, int[] block) {
+            // pixels outside of the image repeat the edge
+            for (int x = 0; x < 4; x++)
+                for (int y = 0; y < 4; y++) {
+                    int px = Math.min(blockX * 4 + x, width - 1);
+                    int py = Math.min(blockY * 4 + y, height - 1);
+                    block[x * 4 + y] = pixels[py * width + px];
+                }
+        }
+    }
+    
+    private static void writeLong(byte[] output, int offset, long value) {
+        for (int i = 0; i < 8; i++)
+            output[offset + i] = (byte) (value >>> (i * 8));
+    }
+    
+    private static long encodeAlpha(int[] block) {
+        long value = 0;
+        for (int id = 0; id < 16; id++)
+            value |= (long) (((block[id] >>> 24) + 8) / 17) << (id * 4);
+        
+        return value;
+    }
+    
+    private static long encodeBlock(int[] block, Quality quality) {
+        long bestError = Long.MAX_VALUE;
+        int bestFlip = 0;
+        boolean bestDifferential = false;
+        HalfBlock bestFirst = null;
+        HalfBlock bestSecond = null;
+        
+        for (int flip = 0; flip < 2; flip++) {
+            int[] first = HALF_BLOCKS[flip][0];
+            int[] second = HALF_BLOCKS[flip][1];
+            
+            // individual mode, both halves are independent
+            HalfBlock a = searchHalfBlock(block, first, 4, quality.radius)[0];
+            HalfBlock b = searchHalfBlock(block, second, 4, quality.radius)[0];
+            if (a.error + b.error < bestError) {
+                bestError = a.error + b.error;
+                bestFlip = flip;
+                bestDifferential = false;
+                bestFirst = a;
+                bestSecond = b;
+            }
+            
+            // differential mode, the second color has to be within the 3 bit range of the first
+            HalfBlock[] differential = searchHalfBlock(block, second, 5, quality.radius);
+            for (HalfBlock c : searchHalfBlock(block, first, 5, quality.radius)) {
+                if (c.error >= bestError)
+                    break;
+                
+                for (HalfBlock d : differential) {
+                    if (c.error + d.error >= bestError)
+                        break;
+                    
+                    if (!isInDifferentialRange(c, d))
+                        continue;
+                    
+                    bestError = c.error + d.error;
+                    bestFlip = flip;
+                    bestDifferential = true;
+                    bestFirst = c;
+                    bestSecond = d;
+                }
+            }
+        }
+        
+        return buildBlock(block, bestFlip, bestDifferential, bestFirst, bestSecond);
+    }
+    
+    private static boolean isInDifferentialRange(HalfBlock first, HalfBlock second) {
+        int dr = second.r - first.r;
+        int dg = second.g - first.g;
+        int db = second.b - first.b;
+        
+        return dr >= -4 && dr <= 3 && dg >= -4 && dg <= 3 && db >= -4 && db <= 3;
+    }
+    
+    /*
+     * Tries all quantized base colors around the average color of the half block, returning them sorted by their error.
+     */
+    private static HalfBlock[] searchHalfBlock(int[] block, int[] ids, int bits, int radius) {
+        int max = (1 << bits) - 1;
+        
+        int sumR = 0;
+        int sumG = 0;
+        int sumB = 0;
+        for (int id : ids) {
+            sumR += (block[id] >>> 16) & 0xFF;
+            sumG += (block[id] >>> 8) & 0xFF;
+            sumB += block[id] & 0xFF;
+        }
+        
+        int avgR = Math.round(sumR * max / (ids.length * 255f));
+        int avgG = Math.round(sumG * max / (ids.length * 255f));
+        int avgB = Math.round(sumB * max / (ids.length * 255f));
+        
+        int size = radius * 2 + 1;
+        HalfBlock[] candidates = new HalfBlock[size * size * size];
+        int count = 0;
+        
+        for (int r = Math.max(0, avgR - radius); r <= Math.min(max, avgR + radius); r++)
+            for (int g = Math.max(0, avgG - radius); g <= Math.min(max, avgG + radius); g++)
+                for (int b = Math.max(0, avgB - radius); b <= Math.min(max, avgB + radius); b++)
+                    candidates[count++] = evaluate(block, ids, r, g, b, bits);
+        
+        HalfBlock[] result = Arrays.copyOf(candidates, count);
+        Arrays.sort(result, (a, b) -> Long.compare(a.error, b.error));
+        return result;
+    }
+    
+    private static HalfBlock evaluate(int[] block, int[] ids, int r, int g, int b, int bits) {
+        int baseR = expand(r, bits);
+        int baseG = expand(g, bits);
+        int baseB = expand(b, bits);
+        
+        long bestError = Long.MAX_VALUE;
+        int bestTable = 0;
+        
+        for (int table = 0; table < PixelFormatDecoder.OFFSET_TABLE.length; table++) {
+            long error = 0;
+            for (int id : ids)
+                error += pixelError(block[id], baseR, baseG, baseB, table) >>> 2;
+            
+            if (error < bestError) {
+                bestError = error;
+                bestTable = table;
+            }
+        }
+        
+        return new HalfBlock(r, g, b, bits, bestTable, bestError);
+    }
+    
+    /*
+     * Finds the best modifier of a table for a pixel, returning the error shifted by 2 and the index of the modifier.
+     */
+    private static int pixelError(int pixel, int baseR, int baseG, int baseB, int table) {
+        int pr = (pixel >>> 16) & 0xFF;
+        int pg = (pixel >>> 8) & 0xFF;
+        int pb = pixel & 0xFF;
+        
+        int bestError = Integer.MAX_VALUE;
+        int bestIndex = 0;
+        for (int i = 0; i < 4; i++) {
+            int modifier = PixelFormatDecoder.OFFSET_TABLE[table][i];
+            int dr = clamp(baseR + modifier) - pr;
+            int dg = clamp(baseG + modifier) - pg;
+            int db = clamp(baseB + modifier) - pb;
+            int error = dr * dr + dg * dg + db * db;
+            
+            if (error < bestError) {
+                bestError = error;
+                bestIndex = i;
+            }
+        }
+        
+        return bestError << 2 | bestIndex;
+    }
+    
+    private static long buildBlock(int[] block, int flip, boolean differential, HalfBlock first, HalfBlock second) {
+        long value = 0;
+        
+        if (differential) {
+            value |= (long) first.r << 59 | (long) ((second.r - first.r) & 0x7) << 56;
+            value |= (long) first.g << 51 | (long) ((second.g - first.g) & 0x7) << 48;
+            value |= (long) first.b << 43 | (long) ((second.b - first.b) & 0x7) << 40;
+            value |= 1L << 33;
+        }
+        else {
+            value |= (long) first.r << 60 | (long) second.r << 56;
+            value |= (long) first.g << 52 | (long) second.g << 48;
+            value |= (long) first.b << 44 | (long) second.b << 40;
+        }
+        
+        value |= (long) first.table << 37 | (long) second.table << 34 | (long) flip << 32;
+        
+        HalfBlock[] halves = new HalfBlock[] { first, second };
+        for (int i = 0; i < 2; i++) {
+            HalfBlock half = halves[i];
+            int baseR = expand(half.r, half.bits);
+            int baseG = expand(half.g, half.bits);
+            int baseB = expand(half.b, half.bits);
+            
+            for (int id : HALF_BLOCKS[flip][i]) {
+                int bits = MODIFIER_BITS[pixelError(block[id], baseR, baseG, baseB, half.table) & 0x3];
+                value |= (long) (bits >>> 1) << (16 + id) | (long) (bits & 1) << id;
+            }
+        }
+        
+        return value;
+    }
+    
+    private static int expand(int value, int bits) {
+        return bits == 4 ? value << 4 | value : value << 3 | value >>> 2;
+    }
+    
+    private static int clamp(int value) {
+        return Math.min(Math.max(value, 0), 255);
+    }
+    
+    private static class HalfBlock {
+        private final int r;
+        private final int g;
+        private final int b;
+        private final int bits;
+        private final int table;
+        private final long error;
+        
+        public HalfBlock(int r, int g, int b, int bits, int table, long error) {
+            this.r = r;
+            this.g = g;
+            this.b = b;
+            this.bits = bits;
+            this.table = table;
+            this.error = error;
+        }
+    }
+}
@@ -24,10 +24,16 @@ public class Main {
     }
     
     public static void main(String[] args) throws IOException {
-        if (args.length == 3) {
+        if (args.length == 3 || args.length == 4) {
             if ("rebuild".equalsIgnoreCase(args[0])) {
                 File input = new File(args[1]);
                 File output = new File(args[2]);
+                boolean incremental = args.length == 4; // reuse unchanged files
+                
+                if (incremental && !"incremental".equalsIgnoreCase(args[3])) {
+                    LOGGER.severe("The mode value must be \"incremental\" or left out.");
+                    return;
+                }
                 
                 if (!input.isDirectory()) {
                     LOGGER.severe("The input value must be a directory.");
@@ -38,11 +44,12 @@ public class Main {
                     output.mkdirs();
                 
                 ARCVFile arcv = new ARCVFile(input, true);
-                arcv.saveFiles(output);
+                arcv.saveFiles(output, incremental);
             }
             else if ("unpack".equalsIgnoreCase(args[0])) {
                 File input = new File(args[1]); // folder with ARCVINFO.BIN and ARCV0.BIN
                 File output = new File(args[2]); // folder to extract into
+                String glob = args.length == 4 ? args[3] : null; // optional filter, e.g. "**.res"
                 
                 if (!input.isDirectory()) {
                     LOGGER.severe("The input value must be a directory.");
@@ -54,9 +61,12 @@ public class Main {
                     return;
                 }
                 
-                try (Access access = new FileAccess(new File(input, "ARCVINFO.BIN"))) {
+                try (Access access = new FileAccess(new File(input, "ARCVINFO.BIN"), true)) {
                     VCRAFile info = new VCRAFile(access);
-                    info.extractARCV(new File(input, "ARCV0.BIN").toPath(), output.toPath());
+                    info.extractARCV(new File(input, "ARCV0.BIN").toPath(), output.toPath(), glob, (done, total) -> {
+                        if (done == total || done % 1000 == 0)
+                            LOGGER.info(() -> String.format("Extracted %d of %d files.", done, total));
+                    });
                 }
             }
         }
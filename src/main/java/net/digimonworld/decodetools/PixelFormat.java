@@ -4,7 +4,6 @@ import java.awt.image.BufferedImage;
 import java.util.function.Function;
 
 import net.digimonworld.decodetools.core.TriFunction;
-import net.digimonworld.decodetools.core.Utils;
 
 public enum PixelFormat {
     RGBA8(0, 32, 0x1001, true, true, PixelFormatDecoder::convertFromRGBA8, PixelFormatEncoder::convertToRGBA8),
@@ -52,9 +51,27 @@ public enum PixelFormat {
         return decoder.apply(pixelData, width, height);
     }
     
+    /**
+     * Decodes the pixel data straight into the given array, untiled and in the orientation the image is displayed in.
+     * 
+     * @param pixelData the pixel data in this format
+     * @param width the width of the texture
+     * @param height the height of the texture
+     * @param dest the array to decode into, in ARGB row by row
+     */
+    public void convertToRGBA(byte[] pixelData, int width, int height, int[] dest) {
+        PixelFormatDecoder.decode(this, pixelData, width, height, dest);
+    }
+    
+    /**
+     * Encodes an image into this format. The image is expected in the orientation it's displayed in, the encoders
+     * flip and tile it while encoding.
+     * 
+     * @param image the image to encode
+     * @return the pixel data in this format
+     */
     public byte[] convertToFormat(BufferedImage image) {
-        //unflip images to make them applicable for the conversion process
-        return encoder.apply(Utils.mirrorImageVertical(image, true));
+        return encoder.apply(image);
     }
     
     public static PixelFormat valueOf(int id) {
@@ -85,4 +102,4 @@ public enum PixelFormat {
         int etc1Factor = this == ETC1 || this == PixelFormat.ETC1A4 ? 16 : 1;
         return (short) (getBPP() * etc1Factor);
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -1,7 +1,6 @@
 package net.digimonworld.decodetools;
 
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
+import java.util.stream.IntStream;
 
 import net.digimonworld.decodetools.core.Utils;
 
@@ -10,15 +9,45 @@ public class PixelFormatDecoder {
      * Static Color offset table as defined in the OpenGL standard. See
      * {@link}https://www.khronos.org/registry/gles/extensions/OES/OES_compressed_ETC1_RGB8_texture.txt}
      */
-    private static final int[][] OFFSET_TABLE = new int[][] { 
+    static final int[][] OFFSET_TABLE = new int[][] { 
             new int[] { -8, -2, 2, 8 }, new int[] { -17, -5, 5, 17 }, 
             new int[] { -29, -9, 9, 29 }, new int[] { -42, -13, 13, 42 }, 
             new int[] { -60, -18, 18, 60 }, new int[] { -80, -24, 24, 80 }, 
             new int[] { -106, -33, 33, 106 }, new int[] { -183, -47, 47, 183 } };
     
+    /**
+     * The offset table applied to every 8 bit color value and cropped to 0-255, indexed by table, offset and color.
+     */
+    private static final int[][][] CLAMPED_OFFSET_TABLE = new int[OFFSET_TABLE.length][4][256];
+    private static final int[] EXTEND_4_TO_8 = new int[16];
+    private static final int[] EXTEND_5_TO_8 = new int[32];
+    
+    // minimum number of pixels for ETC1 textures to be decoded in parallel
+    private static final int PARALLEL_THRESHOLD = 256 * 256;
+    
+    static {
+        for (int i = 0; i < OFFSET_TABLE.length; i++)
+            for (int j = 0; j < 4; j++)
+                for (int k = 0; k < 256; k++)
+                    CLAMPED_OFFSET_TABLE[i][j][k] = (int) Utils.crop(k + OFFSET_TABLE[i][j], 0, 255);
+        
+        for (int i = 0; i < EXTEND_4_TO_8.length; i++)
+            EXTEND_4_TO_8[i] = (int) Utils.extend4To8(i);
+        for (int i = 0; i < EXTEND_5_TO_8.length; i++)
+            EXTEND_5_TO_8[i] = (int) Utils.extend5To8(i);
+    }
+    
     private PixelFormatDecoder() {
     }
     
+    /**
+     * Reads the pixel with the given index from the pixel data of a texture, in ARGB.
+     */
+    @FunctionalInterface
+    private interface PixelReader {
+        int read(byte[] input, int index);
+    }
+    
     public static int[] convertFromETC1A4(byte[] input, int width, int height) {
         return calculate(input, width, height, true);
     }
@@ -28,264 +57,299 @@ public class PixelFormatDecoder {
     }
     
     public static int[] convertFromRGBA8(byte[] a, int width, int height) {
-        int[] data = new int[a.length / 4];
-        for (int i = 0; i < data.length; i++) {
-            data[i] |= (Byte.toUnsignedInt(a[i * 4]) << 24);
-            data[i] |= (Byte.toUnsignedInt(a[i * 4 + 1]));
-            data[i] |= (Byte.toUnsignedInt(a[i * 4 + 2]) << 8);
-            data[i] |= (Byte.toUnsignedInt(a[i * 4 + 3]) << 16);
-        }
-        return data;
+        return convert(a, a.length / 4, PixelFormatDecoder::readRGBA8);
     }
     
     public static int[] convertFromRGB8(byte[] a, int width, int height) {
-        int[] data = new int[a.length / 3];
-        for (int i = 0; i < data.length; i++) {
-            data[i] |= 255 << 24;
-            data[i] |= (Byte.toUnsignedInt(a[i * 3]));
-            data[i] |= (Byte.toUnsignedInt(a[i * 3 + 1]) << 8);
-            data[i] |= (Byte.toUnsignedInt(a[i * 3 + 2]) << 16);
-        }
-        return data;
+        return convert(a, a.length / 3, PixelFormatDecoder::readRGB8);
     }
     
     public static int[] convertFromRGBA5551(byte[] a, int width, int height) {
-        int[] data = new int[a.length / 2];
-        for (int i = 0; i < data.length; i++) {
-            int value = (Byte.toUnsignedInt(a[i * 2 + 1]) << 8) + Byte.toUnsignedInt(a[i * 2]);
-            data[i] |= ((value & 0x01) != 0 ? 255 : 0) << 24;
-            data[i] |= Utils.extend5To8((value >>> 1) & 0x1F);
-            data[i] |= Utils.extend5To8((value >>> 6) & 0x1F) << 8;
-            data[i] |= Utils.extend5To8((value >>> 11) & 0x1F) << 16;
-        }
-        return data;
+        return convert(a, a.length / 2, PixelFormatDecoder::readRGBA5551);
     }
     
     public static int[] convertFromRGBA4(byte[] a, int width, int height) {
-        int[] data = new int[a.length / 2];
-        for (int i = 0; i < data.length; i++) {
-            int value = (Byte.toUnsignedInt(a[i * 2 + 1]) << 8) + Byte.toUnsignedInt(a[i * 2]);
-            data[i] |= Utils.extend4To8(value & 0xF) << 24;
-            data[i] |= Utils.extend4To8((value >>> 4) & 0x1F);
-            data[i] |= Utils.extend4To8((value >>> 8) & 0xF) << 8;
-            data[i] |= Utils.extend4To8((value >>> 12) & 0xF) << 16;
-        }
-        return data;
+        return convert(a, a.length / 2, PixelFormatDecoder::readRGBA4);
     }
     
     public static int[] convertFromRGB565(byte[] a, int width, int height) {
-        int[] data = new int[a.length / 2];
-        for (int i = 0; i < data.length; i++) {
-            int value = (Byte.toUnsignedInt(a[i * 2 + 1]) << 8) + Byte.toUnsignedInt(a[i * 2]);
-            data[i] |= 255 << 24;
-            data[i] |= Utils.extend5To8(value & 0x1F);
-            data[i] |= Utils.extend6To8((value & 0x7E0) >>> 5) << 8;
-            data[i] |= Utils.extend5To8((value & 0xF800) >>> 11) << 16;
-        }
-        return data;
+        return convert(a, a.length / 2, PixelFormatDecoder::readRGB565);
     }
     
     public static int[] convertFromLA4(byte[] a, int width, int height) {
-        int[] data = new int[a.length];
-        
-        for (int i = 0; i < data.length; i++) {
-            data[i] |= Utils.extend4To8(a[i] & 0xF) << 24;
-            data[i] |= Utils.extend4To8((a[i] >>> 4) & 0xF);
-            data[i] |= Utils.extend4To8((a[i] >>> 4) & 0xF) << 8;
-            data[i] |= Utils.extend4To8((a[i] >>> 4) & 0xF) << 16;
-        }
-        
-        return data;
+        return convert(a, a.length, PixelFormatDecoder::readLA4);
     }
     
     public static int[] convertFromLA8(byte[] a, int width, int height) {
-        int[] data = new int[a.length / 2];
-        
-        for (int i = 0; i < data.length; i++) {
-            data[i] |= (Byte.toUnsignedInt(a[i * 2 + 0])) << 24;
-            data[i] |= (Byte.toUnsignedInt(a[i * 2 + 1])) << 16;
-            data[i] |= (Byte.toUnsignedInt(a[i * 2 + 1])) << 8;
-            data[i] |= (Byte.toUnsignedInt(a[i * 2 + 1]));
-        }
-        
-        return data;
+        return convert(a, a.length / 2, PixelFormatDecoder::readLA8);
     }
     
     public static int[] convertFromA8(byte[] a, int width, int height) {
-        int[] data = new int[a.length];
-        
-        for (int i = 0; i < data.length; i++) {
-            data[i] |= Byte.toUnsignedInt(a[i]) << 24;
-            data[i] |= 255;
-            data[i] |= 255 << 8;
-            data[i] |= 255 << 16;
-        }
-        
-        return data;
+        return convert(a, a.length, PixelFormatDecoder::readA8);
     }
     
     public static int[] convertFromL8(byte[] a, int width, int height) {
-        int[] data = new int[a.length];
-        
-        for (int i = 0; i < data.length; i++) {
-            data[i] |= 255 << 24;
-            data[i] |= Byte.toUnsignedInt(a[i]);
-            data[i] |= Byte.toUnsignedInt(a[i]) << 8;
-            data[i] |= Byte.toUnsignedInt(a[i]) << 16;
-        }
-        
-        return data;
+        return convert(a, a.length, PixelFormatDecoder::readL8);
     }
     
     public static int[] convertFromL4(byte[] a, int width, int height) {
-        int[] data = new int[a.length * 2];
-        
-        for (int i = 0; i < a.length; i++) {
-            data[i * 2 + 1] |= 255 << 24;
-            data[i * 2 + 1] |= Utils.extend4To8(a[i] >>> 4);
-            data[i * 2 + 1] |= Utils.extend4To8(a[i] >>> 4) << 8;
-            data[i * 2 + 1] |= Utils.extend4To8(a[i] >>> 4) << 16;
-            
-            data[i * 2 + 0] |= 255 << 24;
-            data[i * 2 + 0] |= Utils.extend4To8(a[i] & 0xF);
-            data[i * 2 + 0] |= Utils.extend4To8(a[i] & 0xF) << 8;
-            data[i * 2 + 0] |= Utils.extend4To8(a[i] & 0xF) << 16;
-        }
-        
-        return data;
+        return convert(a, a.length * 2, PixelFormatDecoder::readL4);
     }
     
     public static int[] convertFromA4(byte[] a, int width, int height) {
-        int[] data = new int[a.length * 2];
+        return convert(a, a.length * 2, PixelFormatDecoder::readA4);
+    }
+    
+    /**
+     * Decodes the pixel data of a texture straight into the given array, untiled and in the orientation the image is
+     * displayed in. Unlike the convertFrom methods no intermediate arrays get allocated, which makes it suitable for
+     * decoding into the data buffer of an image.
+     *
+     * @param format the format of the pixel data
+     * @param input the pixel data
+     * @param width the width of the texture
+     * @param height the height of the texture
+     * @param dest the array to decode into, in ARGB row by row, must hold at least width * height pixels
+     */
+    public static void decode(PixelFormat format, byte[] input, int width, int height, int[] dest) {
+        if (format == PixelFormat.ETC1 || format == PixelFormat.ETC1A4) {
+            calculate(input, width, height, format == PixelFormat.ETC1A4, dest);
+            return;
+        }
+        
+        PixelReader reader = getReader(format);
+        int[] table = format.isTiled() ? Utils.getTileTable(width, height) : null;
         
-        for (int i = 0; i < a.length; i++) {
-            data[i * 2 + 1] |= Utils.extend4To8(a[i] >>> 4) << 24;
-            data[i * 2 + 1] |= 255;
-            data[i * 2 + 1] |= 255 << 8;
-            data[i * 2 + 1] |= 255 << 16;
+        // the tile table as well as untiled data are stored upside down
+        for (int y = 0; y < height; y++) {
+            int row = (height - 1 - y) * width;
+            int start = y * width;
             
-            data[i * 2 + 0] |= Utils.extend4To8(a[i] & 0xF) << 24;
-            data[i * 2 + 0] |= 255;
-            data[i * 2 + 0] |= 255 << 8;
-            data[i * 2 + 0] |= 255 << 16;
+            if (table == null)
+                for (int x = 0; x < width; x++)
+                    dest[start + x] = reader.read(input, row + x);
+            else
+                for (int x = 0; x < width; x++)
+                    dest[start + x] = reader.read(input, table[row + x]);
         }
+    }
+    
+    private static PixelReader getReader(PixelFormat format) {
+        switch (format) {
+            case RGBA8:
+            case SHADER:
+                return PixelFormatDecoder::readRGBA8;
+            case RGB8:
+                return PixelFormatDecoder::readRGB8;
+            case RGB5551:
+                return PixelFormatDecoder::readRGBA5551;
+            case RGB565:
+                return PixelFormatDecoder::readRGB565;
+            case RGBA4:
+                return PixelFormatDecoder::readRGBA4;
+            case LA8:
+                return PixelFormatDecoder::readLA8;
+            case L8:
+                return PixelFormatDecoder::readL8;
+            case A8:
+                return PixelFormatDecoder::readA8;
+            case LA4:
+                return PixelFormatDecoder::readLA4;
+            case L4:
+                return PixelFormatDecoder::readL4;
+            case A4:
+                return PixelFormatDecoder::readA4;
+            default:
+                throw new IllegalArgumentException("Can't decode pixels of format " + format + " one by one.");
+        }
+    }
+    
+    private static int[] convert(byte[] input, int count, PixelReader reader) {
+        int[] data = new int[count];
+        for (int i = 0; i < count; i++)
+            data[i] = reader.read(input, i);
         
         return data;
     }
     
-    private static int buildRGBA8(long r, long g, long b, long a) {
-        int data = 0;
-        data |= (a << 24);
-        data |= (r << 16);
-        data |= (g << 8);
-        data |= b;
-        
-        return data & 0xFFFFFFFF;
+    private static int readRGBA8(byte[] a, int i) {
+        return Byte.toUnsignedInt(a[i * 4]) << 24
+             | Byte.toUnsignedInt(a[i * 4 + 1])
+             | Byte.toUnsignedInt(a[i * 4 + 2]) << 8
+             | Byte.toUnsignedInt(a[i * 4 + 3]) << 16;
+    }
+    
+    private static int readRGB8(byte[] a, int i) {
+        return 255 << 24
+             | Byte.toUnsignedInt(a[i * 3])
+             | Byte.toUnsignedInt(a[i * 3 + 1]) << 8
+             | Byte.toUnsignedInt(a[i * 3 + 2]) << 16;
+    }
+    
+    private static int readRGBA5551(byte[] a, int i) {
+        int value = (Byte.toUnsignedInt(a[i * 2 + 1]) << 8) + Byte.toUnsignedInt(a[i * 2]);
+        return ((value & 0x01) != 0 ? 255 : 0) << 24
+             | EXTEND_5_TO_8[(value >>> 1) & 0x1F]
+             | EXTEND_5_TO_8[(value >>> 6) & 0x1F] << 8
+             | EXTEND_5_TO_8[(value >>> 11) & 0x1F] << 16;
+    }
+    
+    private static int readRGBA4(byte[] a, int i) {
+        int value = (Byte.toUnsignedInt(a[i * 2 + 1]) << 8) + Byte.toUnsignedInt(a[i * 2]);
+        return EXTEND_4_TO_8[value & 0xF] << 24
+             | EXTEND_4_TO_8[(value >>> 4) & 0xF]
+             | EXTEND_4_TO_8[(value >>> 8) & 0xF] << 8
+             | EXTEND_4_TO_8[(value >>> 12) & 0xF] << 16;
+    }
+    
+    private static int readRGB565(byte[] a, int i) {
+        int value = (Byte.toUnsignedInt(a[i * 2 + 1]) << 8) + Byte.toUnsignedInt(a[i * 2]);
+        return 255 << 24
+             | EXTEND_5_TO_8[value & 0x1F]
+             | (int) Utils.extend6To8((value & 0x7E0) >>> 5) << 8
+             | EXTEND_5_TO_8[(value & 0xF800) >>> 11] << 16;
+    }
+    
+    private static int readLA4(byte[] a, int i) {
+        int luminance = EXTEND_4_TO_8[(a[i] >>> 4) & 0xF];
+        return EXTEND_4_TO_8[a[i] & 0xF] << 24 | luminance | luminance << 8 | luminance << 16;
+    }
+    
+    private static int readLA8(byte[] a, int i) {
+        int luminance = Byte.toUnsignedInt(a[i * 2 + 1]);
+        return Byte.toUnsignedInt(a[i * 2]) << 24 | luminance << 16 | luminance << 8 | luminance;
+    }
+    
+    private static int readA8(byte[] a, int i) {
+        return Byte.toUnsignedInt(a[i]) << 24 | 0xFFFFFF;
+    }
+    
+    private static int readL8(byte[] a, int i) {
+        int luminance = Byte.toUnsignedInt(a[i]);
+        return 255 << 24 | luminance | luminance << 8 | luminance << 16;
+    }
+    
+    // 4 bit formats store the first pixel in the lower half of each byte
+    private static int readL4(byte[] a, int i) {
+        int luminance = EXTEND_4_TO_8[(a[i / 2] >>> (i % 2 * 4)) & 0xF];
+        return 255 << 24 | luminance | luminance << 8 | luminance << 16;
+    }
+    
+    private static int readA4(byte[] a, int i) {
+        return EXTEND_4_TO_8[(a[i / 2] >>> (i % 2 * 4)) & 0xF] << 24 | 0xFFFFFF;
     }
     
     private static int[] calculate(byte[] input, int width, int height, boolean alpha) {
-        int[] output = new int[(input.length / 8) * 16];
+        int[] output = new int[width * height];
+        calculate(input, width, height, alpha, output);
+        return output;
+    }
+    
+    private static void calculate(byte[] input, int width, int height, boolean alpha, int[] output) {
+        int groupsX = width / 8;
+        int groupsY = height / 8;
         
-        ByteBuffer inbuff = ByteBuffer.wrap(input);
-        inbuff.order(ByteOrder.LITTLE_ENDIAN);
+        // every row of 2x2 block groups decodes into its own 8 pixel rows of the output
+        IntStream rows = IntStream.range(0, groupsY);
+        if (width * height >= PARALLEL_THRESHOLD)
+            rows = rows.parallel();
         
-        int x = 0;
-        int y = 0;
-        while (inbuff.hasRemaining()) {
-            int[][] value00 = getPixelsForBlock(alpha ? inbuff.getLong() : 0xFFFFFFFFFFFFFFFFL, inbuff.getLong());
-            int[][] value10 = getPixelsForBlock(alpha ? inbuff.getLong() : 0xFFFFFFFFFFFFFFFFL, inbuff.getLong());
-            int[][] value01 = getPixelsForBlock(alpha ? inbuff.getLong() : 0xFFFFFFFFFFFFFFFFL, inbuff.getLong());
-            int[][] value11 = getPixelsForBlock(alpha ? inbuff.getLong() : 0xFFFFFFFFFFFFFFFFL, inbuff.getLong());
+        rows.forEach(row -> {
+            int blockSize = alpha ? 16 : 8;
             
-            for (int i = 0; i < 4; i++)
-                for (int j = 0; j < 4; j++) {
-                    output[(y + 0) * 4 * width + (x + 0) * 4 + j * width + i] = value00[i][j];
-                    output[(y + 1) * 4 * width + (x + 0) * 4 + j * width + i] = value01[i][j];
-                    output[(y + 0) * 4 * width + (x + 1) * 4 + j * width + i] = value10[i][j];
-                    output[(y + 1) * 4 * width + (x + 1) * 4 + j * width + i] = value11[i][j];
+            for (int group = 0; group < groupsX; group++)
+                for (int i = 0; i < 4; i++) {
+                    // blocks of a group are stored in the order 00, 10, 01, 11
+                    int offset = ((row * groupsX + group) * 4 + i) * blockSize;
+                    int x = (group * 2 + (i & 1)) * 4;
+                    int y = (row * 2 + (i >>> 1)) * 4;
+                    
+                    long alphaValue = alpha ? readLong(input, offset) : -1L;
+                    long value = readLong(input, alpha ? offset + 8 : offset);
+                    decodeBlock(alphaValue, value, output, y * width + x, width);
                 }
-            
-            x += 2;
-            if (x * 4 >= width) {
-                x = 0;
-                y += 2;
-            }
-        }
-        
-        return output;
+        });
     }
     
-    private static int[][] getPixelsForBlock(long alpha, long value) {
-        int[][] data = new int[4][4];
+    private static long readLong(byte[] input, int offset) {
+        long value = 0;
+        for (int i = 7; i >= 0; i--)
+            value = value << 8 | (input[offset + i] & 0xFF);
         
-        boolean isDifferential = Utils.getBitValue(value, 33);
-        boolean isFlip = Utils.getBitValue(value, 32);
+        return value;
+    }
+    
+    private static void decodeBlock(long alpha, long value, int[] output, int start, int width) {
+        boolean isDifferential = (value & (1L << 33)) != 0;
+        boolean isFlip = (value & (1L << 32)) != 0;
         
-        int tableCW2 = (int) Utils.getSubInteger(value, 34, 3);
-        int tableCW1 = (int) Utils.getSubInteger(value, 37, 3);
+        int[][] table1 = CLAMPED_OFFSET_TABLE[(int) (value >>> 37) & 0x7];
+        int[][] table2 = CLAMPED_OFFSET_TABLE[(int) (value >>> 34) & 0x7];
         
-        long r1;
-        long g1;
-        long b1;
+        int r1;
+        int g1;
+        int b1;
         
-        long r2;
-        long g2;
-        long b2;
+        int r2;
+        int g2;
+        int b2;
         
         if (isDifferential) {
-            long baseR = Utils.getSubInteger(value, 59, 5);
-            long baseG = Utils.getSubInteger(value, 51, 5);
-            long baseB = Utils.getSubInteger(value, 43, 5);
+            int baseR = (int) (value >>> 59) & 0x1F;
+            int baseG = (int) (value >>> 51) & 0x1F;
+            int baseB = (int) (value >>> 43) & 0x1F;
             
-            long diffR = Utils.getSubInteger(value, 56, 3);
-            long diffG = Utils.getSubInteger(value, 48, 3);
-            long diffB = Utils.getSubInteger(value, 40, 3);
+            // sign extend the 3 bit differences
+            int diffR = (int) (value >>> 56) << 29 >> 29;
+            int diffG = (int) (value >>> 48) << 29 >> 29;
+            int diffB = (int) (value >>> 40) << 29 >> 29;
             
-            r1 = Utils.extend5To8(baseR);
-            g1 = Utils.extend5To8(baseG);
-            b1 = Utils.extend5To8(baseB);
+            r1 = EXTEND_5_TO_8[baseR];
+            g1 = EXTEND_5_TO_8[baseG];
+            b1 = EXTEND_5_TO_8[baseB];
             
-            r2 = Utils.extend5To8(Utils.add3BitSigned(baseR, diffR));
-            g2 = Utils.extend5To8(Utils.add3BitSigned(baseG, diffG));
-            b2 = Utils.extend5To8(Utils.add3BitSigned(baseB, diffB));
+            r2 = EXTEND_5_TO_8[(baseR + diffR) & 0x1F];
+            g2 = EXTEND_5_TO_8[(baseG + diffG) & 0x1F];
+            b2 = EXTEND_5_TO_8[(baseB + diffB) & 0x1F];
         }
         else {
-            r1 = Utils.extend4To8(Utils.getSubInteger(value, 60, 4));
-            g1 = Utils.extend4To8(Utils.getSubInteger(value, 52, 4));
-            b1 = Utils.extend4To8(Utils.getSubInteger(value, 44, 4));
+            r1 = EXTEND_4_TO_8[(int) (value >>> 60) & 0xF];
+            g1 = EXTEND_4_TO_8[(int) (value >>> 52) & 0xF];
+            b1 = EXTEND_4_TO_8[(int) (value >>> 44) & 0xF];
             
-            r2 = Utils.extend4To8(Utils.getSubInteger(value, 56, 4));
-            g2 = Utils.extend4To8(Utils.getSubInteger(value, 48, 4));
-            b2 = Utils.extend4To8(Utils.getSubInteger(value, 40, 4));
+            r2 = EXTEND_4_TO_8[(int) (value >>> 56) & 0xF];
+            g2 = EXTEND_4_TO_8[(int) (value >>> 48) & 0xF];
+            b2 = EXTEND_4_TO_8[(int) (value >>> 40) & 0xF];
         }
         
         for (int x = 0; x < 4; x++)
             for (int y = 0; y < 4; y++) {
                 int id = x * 4 + y;
                 
-                boolean msb = Utils.getBitValue(value, 16 + id);
-                boolean lsb = Utils.getBitValue(value, id);
-                int offset = (!msb ? 0b10 : 0) + ((lsb ^ msb) ? 0b1 : 0);
-                long a = Utils.extend4To8(Utils.getSubInteger(alpha, id * 4, 4));
+                int msb = (int) (value >>> (16 + id)) & 1;
+                int lsb = (int) (value >>> id) & 1;
+                int offset = (msb ^ 1) << 1 | (lsb ^ msb);
+                int a = EXTEND_4_TO_8[(int) (alpha >>> (id * 4)) & 0xF];
                 
-                long r;
-                long g;
-                long b;
+                int[] modifier;
+                int r;
+                int g;
+                int b;
                 if (isFlip && y >= 2 || !isFlip && x >= 2) {
-                    r = Utils.crop(r2 + OFFSET_TABLE[tableCW2][offset], 0, 255);
-                    g = Utils.crop(g2 + OFFSET_TABLE[tableCW2][offset], 0, 255);
-                    b = Utils.crop(b2 + OFFSET_TABLE[tableCW2][offset], 0, 255);
+                    modifier = table2[offset];
+                    r = r2;
+                    g = g2;
+                    b = b2;
                 }
                 else {
-                    r = Utils.crop(r1 + OFFSET_TABLE[tableCW1][offset], 0, 255);
-                    g = Utils.crop(g1 + OFFSET_TABLE[tableCW1][offset], 0, 255);
-                    b = Utils.crop(b1 + OFFSET_TABLE[tableCW1][offset], 0, 255);
+                    modifier = table1[offset];
+                    r = r1;
+                    g = g1;
+                    b = b1;
                 }
                 
-                data[x][y] = buildRGBA8(r, g, b, a);
+                output[start + y * width + x] = a << 24 | modifier[r] << 16 | modifier[g] << 8 | modifier[b];
             }
-        
-        return data;
     }
     
 }
@@ -1,266 +1,191 @@
 package net.digimonworld.decodetools;
 
 import java.awt.image.BufferedImage;
-import java.io.File;
-import java.io.IOException;
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
-import java.nio.file.Files;
-import java.util.logging.Level;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
 
-import javax.imageio.ImageIO;
-
-import net.digimonworld.decodetools.core.FileAccess;
 import net.digimonworld.decodetools.core.Utils;
 
+/**
+ * Encodes images into the pixel formats of textures. The images are expected in the orientation they're displayed in,
+ * the encoders read them row by row and write every pixel straight to its flipped and tiled position, without
+ * intermediate copies of the image.
+ */
 public class PixelFormatEncoder {
-    private static final String ENCODER_PATH = "./3dstex";
-    
     private PixelFormatEncoder() {
     }
     
+    /**
+     * Writes a pixel in ARGB to the given pixel index of the encoded data.
+     */
+    @FunctionalInterface
+    private interface PixelWriter {
+        void write(byte[] data, int index, int pixel);
+    }
+    
     public static byte[] convertToRGBA8(BufferedImage image) {
-        byte[] data = new byte[image.getWidth() * image.getHeight() * 4];
-        ByteBuffer buffer = ByteBuffer.wrap(data);
-        
-        int[] pixels = Utils.tile(image.getWidth(), image.getHeight(), image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth()));
-        
-        for (int i : pixels) {
-            buffer.put((byte) ((i >>> 24) & 0xFF));
-            buffer.put((byte) ((i) & 0xFF));
-            buffer.put((byte) ((i >>> 8) & 0xFF));
-            buffer.put((byte) ((i >>> 16) & 0xFF));
-        }
-        
-        return data;
+        return encode(image, 32, true, (data, i, pixel) -> {
+            data[i * 4] = (byte) (pixel >>> 24);
+            data[i * 4 + 1] = (byte) pixel;
+            data[i * 4 + 2] = (byte) (pixel >>> 8);
+            data[i * 4 + 3] = (byte) (pixel >>> 16);
+        });
     }
     
     public static byte[] convertToUnknown(BufferedImage image) {
-        byte[] data = new byte[image.getWidth() * image.getHeight() * 4];
-        ByteBuffer buffer = ByteBuffer.wrap(data);
-        
-        int[] pixels = image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
-        
-        for (int i : pixels) {
-            buffer.put((byte) ((i >>> 24) & 0xFF));
-            buffer.put((byte) ((i) & 0xFF));
-            buffer.put((byte) ((i >>> 8) & 0xFF));
-            buffer.put((byte) ((i >>> 16) & 0xFF));
-        }
-        
-        return data;
+        return encode(image, 32, false, (data, i, pixel) -> {
+            data[i * 4] = (byte) (pixel >>> 24);
+            data[i * 4 + 1] = (byte) pixel;
+            data[i * 4 + 2] = (byte) (pixel >>> 8);
+            data[i * 4 + 3] = (byte) (pixel >>> 16);
+        });
     }
     
     public static byte[] convertToRGB8(BufferedImage image) {
-        byte[] data = new byte[image.getWidth() * image.getHeight() * 3];
-        ByteBuffer buffer = ByteBuffer.wrap(data);
-        
-        int[] pixels = Utils.tile(image.getWidth(), image.getHeight(), image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth()));
-        
-        for (int i : pixels) {
-            buffer.put((byte) ((i) & 0xFF));
-            buffer.put((byte) ((i >>> 8) & 0xFF));
-            buffer.put((byte) ((i >>> 16) & 0xFF));
-        }
-        
-        return data;
+        return encode(image, 24, true, (data, i, pixel) -> {
+            data[i * 3] = (byte) pixel;
+            data[i * 3 + 1] = (byte) (pixel >>> 8);
+            data[i * 3 + 2] = (byte) (pixel >>> 16);
+        });
     }
     
     public static byte[] convertToRGBA5551(BufferedImage image) {
-        byte[] data = new byte[image.getWidth() * image.getHeight() * 2];
-        ByteBuffer buffer = ByteBuffer.wrap(data);
-        buffer.order(ByteOrder.LITTLE_ENDIAN);
-        
-        int[] pixels = Utils.tile(image.getWidth(), image.getHeight(), image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth()));
-        
-        for (int i : pixels) {
-            short value = 0;
-            value |= (i >>> 31) & 0x1;
-            value |= ((i >>> 19) & 0x1F) << 11;
-            value |= ((i >>> 11) & 0x1F) << 6;
-            value |= ((i >>> 3) & 0x1F) << 1;
-            buffer.putShort(value);
-        }
-        
-        return data;
+        return encode(image, 16, true, (data, i, pixel) -> {
+            int value = 0;
+            value |= (pixel >>> 31) & 0x1;
+            value |= ((pixel >>> 19) & 0x1F) << 11;
+            value |= ((pixel >>> 11) & 0x1F) << 6;
+            value |= ((pixel >>> 3) & 0x1F) << 1;
+            writeShort(data, i, value);
+        });
     }
     
     public static byte[] convertToRGB565(BufferedImage image) {
-        byte[] data = new byte[image.getWidth() * image.getHeight() * 2];
-        ByteBuffer buffer = ByteBuffer.wrap(data);
-        buffer.order(ByteOrder.LITTLE_ENDIAN);
-        
-        int[] pixels = Utils.tile(image.getWidth(), image.getHeight(), image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth()));
-        
-        for (int i : pixels) {
-            short value = 0;
-            value |= ((i >>> 19) & 0x1F) << 11;
-            value |= ((i >>> 10) & 0x3F) << 5;
-            value |= ((i >>> 3) & 0x1F);
-            buffer.putShort(value);
-        }
-        
-        return data;
+        return encode(image, 16, true, (data, i, pixel) -> {
+            int value = 0;
+            value |= ((pixel >>> 19) & 0x1F) << 11;
+            value |= ((pixel >>> 10) & 0x3F) << 5;
+            value |= ((pixel >>> 3) & 0x1F);
+            writeShort(data, i, value);
+        });
     }
     
     public static byte[] convertToRGBA4(BufferedImage image) {
-        byte[] data = new byte[image.getWidth() * image.getHeight() * 2];
-        ByteBuffer buffer = ByteBuffer.wrap(data);
-        buffer.order(ByteOrder.LITTLE_ENDIAN);
-        
-        int[] pixels = Utils.tile(image.getWidth(), image.getHeight(), image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth()));
-        
-        for (int i : pixels) {
-            short value = 0;
-            value |= (short) ((i >>> 28) & 0xF);
-            value |= (short) ((i >>> 20) & 0xF) << 12;
-            value |= (short) ((i >>> 12) & 0xF) << 8;
-            value |= (short) ((i >>> 4) & 0xF) << 4;
-            buffer.putShort(value);
-        }
-        
-        return data;
+        return encode(image, 16, true, (data, i, pixel) -> {
+            int value = 0;
+            value |= (pixel >>> 28) & 0xF;
+            value |= ((pixel >>> 20) & 0xF) << 12;
+            value |= ((pixel >>> 12) & 0xF) << 8;
+            value |= ((pixel >>> 4) & 0xF) << 4;
+            writeShort(data, i, value);
+        });
     }
     
     public static byte[] convertToLA8(BufferedImage image) {
-        byte[] data = new byte[image.getWidth() * image.getHeight() * 2];
-        ByteBuffer buffer = ByteBuffer.wrap(data);
-        
-        int[] pixels = Utils.tile(image.getWidth(), image.getHeight(), image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth()));
-        
-        for (int i : pixels) {
-            buffer.put((byte) ((i >>> 24) & 0xFF));
-            buffer.put((byte) ((i) & 0xFF));
-        }
-        
-        return data;
+        return encode(image, 16, true, (data, i, pixel) -> {
+            data[i * 2] = (byte) (pixel >>> 24);
+            data[i * 2 + 1] = (byte) pixel;
+        });
     }
     
     public static byte[] convertToLA4(BufferedImage image) {
-        byte[] data = new byte[image.getWidth() * image.getHeight()];
-        ByteBuffer buffer = ByteBuffer.wrap(data);
-        
-        int[] pixels = Utils.tile(image.getWidth(), image.getHeight(), image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth()));
-        
-        for (int i : pixels) {
-            byte value = 0;
-            value |= (byte) ((i >>> 28) & 0xF);
-            value |= (byte) (i & 0xF0);
-            buffer.put(value);
-        }
-        
-        return data;
+        return encode(image, 8, true, (data, i, pixel) -> data[i] = (byte) (((pixel >>> 28) & 0xF) | (pixel & 0xF0)));
     }
     
     public static byte[] convertToA8(BufferedImage image) {
-        byte[] data = new byte[image.getWidth() * image.getHeight()];
-        ByteBuffer buffer = ByteBuffer.wrap(data);
-        
-        int[] pixels = Utils.tile(image.getWidth(), image.getHeight(), image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth()));
-        
-        for (int i : pixels) {
-            buffer.put((byte) ((i >>> 24) & 0xFF));
-        }
-        
-        return data;
+        return encode(image, 8, true, (data, i, pixel) -> data[i] = (byte) (pixel >>> 24));
     }
     
     public static byte[] convertToL8(BufferedImage image) {
-        byte[] data = new byte[image.getWidth() * image.getHeight()];
-        ByteBuffer buffer = ByteBuffer.wrap(data);
-        
-        int[] pixels = Utils.tile(image.getWidth(), image.getHeight(), image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth()));
-        
-        for (int i : pixels) {
-            buffer.put((byte) ((i) & 0xFF));
-        }
-        
-        return data;
+        return encode(image, 8, true, (data, i, pixel) -> data[i] = (byte) pixel);
     }
     
+    // 4 bit formats store the first pixel in the lower half of each byte
     public static byte[] convertToL4(BufferedImage image) {
-        byte[] data = new byte[image.getWidth() * image.getHeight() / 2];
-        ByteBuffer buffer = ByteBuffer.wrap(data);
-        
-        int[] pixels = Utils.tile(image.getWidth(), image.getHeight(), image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth()));
-        for (int i = 0; i < pixels.length / 2; i++) {
-            byte value = 0;
-            value |= (pixels[i * 2 + 1]) & 0xF0;
-            value |= (pixels[i * 2 + 0] >>> 4) & 0xF;
-            buffer.put(value);
-        }
-        
-        return data;
+        return encode(image, 4, true, (data, i, pixel) -> data[i / 2] |= i % 2 == 0 ? (pixel >>> 4) & 0xF : pixel & 0xF0);
     }
     
     public static byte[] convertToA4(BufferedImage image) {
-        byte[] data = new byte[image.getWidth() * image.getHeight() / 2];
-        ByteBuffer buffer = ByteBuffer.wrap(data);
-        
-        int[] pixels = Utils.tile(image.getWidth(), image.getHeight(), image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth()));
-        for (int i = 0; i < pixels.length / 2; i++) {
-            byte value = 0;
-            value |= pixels[i * 2 + 1] >>> 24 & 0xF0;
-            value |= (pixels[i * 2 + 0] >>> 28) & 0xF;
-            buffer.put(value);
-        }
-        
-        return data;
+        return encode(image, 4, true, (data, i, pixel) -> data[i / 2] |= i % 2 == 0 ? (pixel >>> 28) & 0xF : (pixel >>> 24) & 0xF0);
     }
     
     public static byte[] convertToETC1(BufferedImage image) {
-        try {
-            File source = File.createTempFile("etc1Source", null);
-            File target = File.createTempFile("etc1Target", null);
-            ImageIO.write(image, "PNG", source);
-            
-            Process process = new ProcessBuilder().command(ENCODER_PATH, "-r", "-o", "etc1", source.getPath(), target.getPath()).start();
-            process.waitFor();
-            
-            try (FileAccess tmp = new FileAccess(target)) {
-                return tmp.readByteArray(image.getHeight() * image.getWidth() / 2);
-            }
-            finally {
-                Files.delete(source.toPath());
-                Files.delete(target.toPath());
-            }
-        }
-        catch (InterruptedException e) {
-            Main.LOGGER.log(Level.SEVERE, "An interrupt happened while execution the process.", e);
-            Thread.currentThread().interrupt();
-        }
-        catch (IOException e) {
-            Main.LOGGER.log(Level.SEVERE, "An IO error occured while converting to ETC1", e);
-        }
-        
-        return new byte[0];
+        return convertToETC1(image, ETC1Encoder.Quality.MEDIUM);
+    }
+    
+    public static byte[] convertToETC1(BufferedImage image, ETC1Encoder.Quality quality) {
+        return ETC1Encoder.encode(getPixels(image), image.getWidth(), image.getHeight(), false, quality);
     }
     
     public static byte[] convertToETC1A4(BufferedImage image) {
-        try {
-            File source = File.createTempFile("etc1Source", null);
-            File target = File.createTempFile("etc1Target", null);
-            ImageIO.write(image, "PNG", source);
-            
-            Process process = new ProcessBuilder().command(ENCODER_PATH, "-r", "-o", "etc1a4", source.getPath(), target.getPath()).start();
-            process.waitFor();
+        return convertToETC1A4(image, ETC1Encoder.Quality.MEDIUM);
+    }
+    
+    public static byte[] convertToETC1A4(BufferedImage image, ETC1Encoder.Quality quality) {
+        return ETC1Encoder.encode(getPixels(image), image.getWidth(), image.getHeight(), true, quality);
+    }
+    
+    private static byte[] encode(BufferedImage image, int bitsPerPixel, boolean tiled, PixelWriter writer) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        byte[] data = new byte[width * height * bitsPerPixel / 8];
+        
+        int[] table = tiled ? Utils.getTileTable(width, height) : null;
+        int[] pixels = getPackedPixels(image);
+        int[] row = pixels == null ? new int[width] : null;
+        
+        for (int y = 0; y < height; y++) {
+            int start = y * width;
+            if (pixels == null)
+                image.getRGB(0, y, width, 1, row, 0, width);
             
-            try (FileAccess tmp = new FileAccess(target)) {
-                return tmp.readByteArray(image.getHeight() * image.getWidth());
+            // encoded textures as well as the tile table are upside down
+            int target = (height - 1 - y) * width;
+            for (int x = 0; x < width; x++) {
+                int pixel = pixels != null ? pixels[start + x] : row[x];
+                writer.write(data, table != null ? table[target + x] : target + x, pixel);
             }
-            finally {
-                Files.delete(source.toPath());
-                Files.delete(target.toPath());
-            }
-        }
-        catch (InterruptedException e) {
-            Main.LOGGER.log(Level.SEVERE, "An interrupt happened while execution the process.", e);
-            Thread.currentThread().interrupt();
-        }
-        catch (IOException e) {
-            Main.LOGGER.log(Level.SEVERE, "An IO error occured while converting to ETC1A4", e);
         }
         
-        return new byte[0];
+        return data;
+    }
+    
+    /*
+     * ETC1 textures aren't flipped, so the encoder can work on the pixels of the image as they are.
+     */
+    private static int[] getPixels(BufferedImage image) {
+        int[] pixels = getPackedPixels(image);
+        if (pixels != null)
+            return pixels;
+        
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+    
+    /*
+     * Gets the pixels backing an ARGB image that stores them row by row without any gaps, like the images of decoded
+     * textures, or null for every other image. They must not be modified.
+     */
+    private static int[] getPackedPixels(BufferedImage image) {
+        if (image.getType() != BufferedImage.TYPE_INT_ARGB)
+            return null;
+        
+        WritableRaster raster = image.getRaster();
+        if (!(raster.getDataBuffer() instanceof DataBufferInt) || !(raster.getSampleModel() instanceof SinglePixelPackedSampleModel))
+            return null;
+        
+        DataBufferInt buffer = (DataBufferInt) raster.getDataBuffer();
+        SinglePixelPackedSampleModel model = (SinglePixelPackedSampleModel) raster.getSampleModel();
+        
+        if (buffer.getNumBanks() != 1 || buffer.getOffset() != 0 || model.getScanlineStride() != image.getWidth()
+                || raster.getSampleModelTranslateX() != 0 || raster.getSampleModelTranslateY() != 0)
+            return null;
+        
+        return buffer.getData();
+    }
+    
+    private static void writeShort(byte[] data, int index, int value) {
+        data[index * 2] = (byte) value;
+        data[index * 2 + 1] = (byte) (value >>> 8);
     }
 }
@@ -1,24 +1,41 @@
 package net.digimonworld.decodetools.arcv;
 
-import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
 import java.util.Arrays;
-import java.util.List;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.zip.Deflater;
 
 import net.digimonworld.decodetools.Main;
 import net.digimonworld.decodetools.core.Access;
 import net.digimonworld.decodetools.core.FileAccess;
+import net.digimonworld.decodetools.core.GrowableBufferAccess;
+import net.digimonworld.decodetools.core.StreamAccess;
 import net.digimonworld.decodetools.core.Utils;
 import net.digimonworld.decodetools.res.DummyResData;
 import net.digimonworld.decodetools.res.ResPayload;
 import net.digimonworld.decodetools.res.ResPayload.Payload;
 
 public class ARCVFile {
+    private static final int THREADS = Runtime.getRuntime().availableProcessors();
+    private static final int REORDER_WINDOW = THREADS * 2;
+    
     private File inputDir;
     private boolean compressed;
     
@@ -35,88 +52,217 @@ public class ARCVFile {
     }
     
     public void saveFiles(File outputDir) throws IOException {
+        saveFiles(outputDir, false);
+    }
+    
+    /**
+     * Builds ARCV0.BIN and ARCVINFO.BIN out of the input directory, along with a manifest of the hashes of all files.
+     * <p>
+     * In incremental mode the previous build in the output directory gets reused. Files whose hash matches the
+     * manifest get copied from the old ARCV0.BIN as they are, only new and modified files get compressed and analysed.
+     * </p>
+     * 
+     * @param outputDir the directory to write into
+     * @param incremental whether to reuse the previous build in the output directory
+     * @throws IOException if anything goes wrong writing the files
+     */
+    public void saveFiles(File outputDir, boolean incremental) throws IOException {
         File destFile = new File(outputDir, "ARCV0.BIN");
+        File tempFile = new File(outputDir, "ARCV0.BIN.tmp");
         
-        if (destFile.exists() && !destFile.delete())
-            return;
-        if (!destFile.exists() && !destFile.createNewFile())
-            return;
-        
-        Access destination = new FileAccess(destFile);
         VCRAFile arcvinfo = new VCRAFile();
+        ARCVManifest manifest = new ARCVManifest();
         RunValues run = new RunValues();
         
-        List<File> list = Utils.listFiles(inputDir);
+        Iterator<File> files = Utils.listFiles(inputDir).stream().filter(a -> !a.getName().endsWith(".bak") && a.isFile()).iterator();
+        Deque<Future<AddFileResult>> window = new ArrayDeque<>();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        boolean complete = false;
         
-        list.parallelStream().filter(a -> !a.getName().endsWith(".bak") && a.isFile()).map(t -> {
-            Path filePath = inputDir.toPath().relativize(t.toPath());
-            Main.LOGGER.info("Adding " + filePath);
-            try {
-                return addFile(t.toPath(), filePath.toString().replace("\\", "/")); // fuck windows
-            }
-            catch (Exception e) {
-                Main.LOGGER.log(Level.WARNING, e, () -> "Exception while adding file to ARCVFile: " + filePath);
+        // the new archive is written next to the old one, as it may still be needed
+        try (PreviousBuild previous = incremental ? PreviousBuild.load(outputDir) : null;
+             FileChannel destination = FileChannel.open(tempFile.toPath(), StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                                                        StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (files.hasNext() || !window.isEmpty()) {
+                // only a bounded number of files is processed ahead, so memory use doesn't grow with the archive
+                while (files.hasNext() && window.size() < REORDER_WINDOW) {
+                    File file = files.next();
+                    window.add(executor.submit(() -> tryAddFile(file, previous)));
+                }
+                
+                // only removed once done, so an interrupt still leaves it to the cleanup
+                AddFileResult a = window.peek().get();
+                window.poll();
+                if (a == null)
+                    continue;
+                
+                arcvinfo.addEntry(new VCRAEntry(a.compressedSize, a.uncompressedSize, a.name, run.sectorCount, a.marv));
+                manifest.putHash(a.name, a.hash);
+                try {
+                    destination.position(run.sectorCount * 0x800L);
+                    
+                    if (a.previousSector != -1)
+                        previous.copySectors(a.previousSector, a.sectors, destination);
+                    else
+                        GrowableBufferAccess.writeTo(destination, a.data);
+                }
+                catch (IOException e) {
+                    Main.LOGGER.log(Level.WARNING, e, () -> "Exception while writing file to ARCVFile: " + a.name);
+                }
+                run.sectorCount += a.sectors;
+                
+                if (a.output != null)
+                    a.output.close();
+                
+                run.reusedFiles += a.previousSector != -1 ? 1 : 0;
+                run.zipTime += a.zipTime;
+                run.resLoadTime += a.loadTime;
+                run.resDataTime += a.dataTime;
             }
             
-            return null;
-        }).forEachOrdered(a -> {
-            arcvinfo.addEntry(new VCRAEntry(a.compressedSize, a.uncompressedSize, a.name, run.sectorCount, a.marv));
-            destination.writeByteArray(a.output.toByteArray());
-            run.sectorCount += (a.output.size() + 0x800 - 1) / 0x800;
+            // files are only padded by the offset of the next one, so pad the last one explicitly
+            if (destination.size() < run.sectorCount * 0x800L)
+                destination.write(ByteBuffer.allocate(1), run.sectorCount * 0x800L - 1);
+            
+            complete = true;
+        }
+        catch (ExecutionException e) {
+            Main.LOGGER.log(Level.SEVERE, "Exception while building ARCVFile.", e);
+            return;
+        }
+        catch (InterruptedException e) {
+            Main.LOGGER.log(Level.WARNING, "Interrupted while building ARCVFile.", e);
+            Thread.currentThread().interrupt();
+            return;
+        }
+        finally {
+            // files that haven't started are dropped, running ones are awaited so their buffers can be released
+            window.forEach(a -> a.cancel(false));
+            executor.shutdown();
+            VCRAFile.awaitTermination(executor);
+            window.stream().filter(a -> !a.isCancelled()).forEach(ARCVFile::closeResult);
             
-            run.zipTime += a.zipTime;
-            run.resLoadTime += a.loadTime;
-            run.resDataTime += a.dataTime;
-        });
+            if (!complete)
+                Files.deleteIfExists(tempFile.toPath());
+        }
         
-        destination.close();
+        Files.move(tempFile.toPath(), destFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
         arcvinfo.repack(new File(outputDir, "ARCVINFO.BIN"));
+        manifest.save(new File(outputDir, ARCVManifest.FILE_NAME));
         
-        Main.LOGGER.info(() -> String.format("ZIP: %d | Res Load: %d | Res Data: %d",
+        Main.LOGGER.info(() -> String.format("ZIP: %d | Res Load: %d | Res Data: %d | Reused: %d",
                                              (run.zipTime / 1000000),
                                              (run.resLoadTime / 1000000),
-                                             (run.resDataTime / 1000000)));
+                                             (run.resDataTime / 1000000),
+                                             run.reusedFiles));
+    }
+    
+    private static void closeResult(Future<AddFileResult> future) {
+        try {
+            AddFileResult result = future.get();
+            if (result != null && result.output != null)
+                result.output.close();
+        }
+        catch (ExecutionException e) {
+            // failed files have no buffers left, the failure itself was already reported
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private AddFileResult tryAddFile(File file, PreviousBuild previous) {
+        Path filePath = inputDir.toPath().relativize(file.toPath());
+        String name = filePath.toString().replace("\\", "/"); // fuck windows
+        
+        try {
+            // read rather than mapped, as the input files might get saved in place later on
+            byte[] data = Files.readAllBytes(file.toPath());
+            String hash = ARCVManifest.hash(ByteBuffer.wrap(data));
+            
+            VCRAEntry entry = previous == null ? null : previous.getReusable(name, hash, shouldCompress(data.length));
+            if (entry != null)
+                return reuseFile(entry, hash);
+            
+            Main.LOGGER.info("Adding " + filePath);
+            AddFileResult result = addFile(data, name);
+            result.hash = hash;
+            return result;
+        }
+        catch (Exception e) {
+            Main.LOGGER.log(Level.WARNING, e, () -> "Exception while adding file to ARCVFile: " + filePath);
+        }
+        
+        return null;
     }
     
-    private AddFileResult addFile(Path a, String name) throws IOException {
+    private boolean shouldCompress(int size) {
+        return size > 0x1000 && compressed;
+    }
+    
+    private static AddFileResult reuseFile(VCRAEntry entry, String hash) {
+        AddFileResult result = new AddFileResult();
+        result.name = entry.getPath();
+        result.hash = hash;
+        result.marv = entry.getMARV();
+        result.compressedSize = entry.getCompressedSize();
+        result.uncompressedSize = entry.getUnpackedSize();
+        result.previousSector = entry.getSector();
+        result.sectors = Utils.align(entry.getCompressedSize(), 0x800) / 0x800;
+        
+        return result;
+    }
+    
+    private AddFileResult addFile(byte[] data, String name) {
         AddFileResult result = new AddFileResult();
         result.name = name;
         
         long timer = System.nanoTime();
         
         // ZIP
-        byte[] input = Files.readAllBytes(a);
-        boolean shouldCompress = input.length > 0x1000 && compressed;
+        int inputSize = data.length;
+        ByteBuffer input = ByteBuffer.wrap(data);
+        boolean shouldCompress = shouldCompress(inputSize);
         int compressedSize = 0;
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
         
         if (shouldCompress) {
+            GrowableBufferAccess outputStream = new GrowableBufferAccess();
             Deflater compresser = new Deflater(Deflater.BEST_COMPRESSION);
-            compresser.setInput(input);
-            compresser.finish();
             
-            byte[] output = new byte[0x800];
-            while (!compresser.finished()) {
-                Arrays.fill(output, (byte) 0);
-                compressedSize += compresser.deflate(output);
-                outputStream.write(output);
+            try {
+                compresser.setInput(input);
+                compresser.finish();
+                
+                byte[] output = new byte[0x800];
+                while (!compresser.finished()) {
+                    Arrays.fill(output, (byte) 0);
+                    compressedSize += compresser.deflate(output);
+                    outputStream.writeByteArray(output);
+                }
             }
+            finally {
+                compresser.end();
+            }
+            
+            result.output = outputStream;
+            result.data = outputStream.getBuffers();
+            result.sectors = (int) (outputStream.getSize() / 0x800);
         }
         else {
-            byte[] output = Arrays.copyOf(input, Utils.align(input.length, 0x800));
-            compressedSize = input.length;
-            outputStream.write(output);
+            // stored as is, so it gets written straight from the input
+            compressedSize = inputSize;
+            result.data = new ByteBuffer[] { input };
+            result.sectors = Utils.align(inputSize, 0x800) / 0x800;
         }
         
-        result.output = outputStream;
         result.compressedSize = compressedSize;
-        result.uncompressedSize = input.length;
+        result.uncompressedSize = inputSize;
         
         result.zipTime = System.nanoTime() - timer;
         timer = System.nanoTime();
         
         // Res Load
-        Access access = new FileAccess(a.toFile(), true);
+        StreamAccess access = new StreamAccess(data);
         ResPayload res = ResPayload.craft(access);
         int kcapSize = res.getType() == Payload.KCAP ? access.readInteger(0x08) : 0;
         access.close();
@@ -139,9 +285,9 @@ public class ARCVFile {
         }
         
         // sanity checks, MARV generation
-        if (input.length - Utils.align(structureSize, 0x80) != dataSize && dataSize != 0) {
+        if (inputSize - Utils.align(structureSize, 0x80) != dataSize && dataSize != 0) {
             Main.LOGGER.log(Level.WARNING, () -> name + " calculated size and actual size differs. It's format might be invalid, please check and re-export if necessary.");
-            dataSize = input.length - Utils.align(structureSize, 0x80);
+            dataSize = inputSize - Utils.align(structureSize, 0x80);
         }
             
         MARVEntry marv = new MARVEntry(structureSize, dataSize, dataEntries, name.endsWith(".img"));
@@ -154,7 +300,11 @@ public class ARCVFile {
     }
     
     static class AddFileResult {
-        ByteArrayOutputStream output;
+        GrowableBufferAccess output;
+        ByteBuffer[] data;
+        int sectors;
+        int previousSector = -1;
+        String hash;
         MARVEntry marv;
         String name;
         int uncompressedSize;
@@ -167,9 +317,83 @@ public class ARCVFile {
     
     static class RunValues {
         int sectorCount = 0;
+        int reusedFiles = 0;
         
         long zipTime = 0;
         long resLoadTime = 0;
         long resDataTime = 0;
     }
+    
+    /**
+     * The output of a previous build, to reuse the compressed data of unchanged files from.
+     */
+    static class PreviousBuild implements Closeable {
+        private final Map<String, VCRAEntry> entries = new HashMap<>();
+        private final ARCVManifest manifest;
+        private final FileChannel data;
+        
+        private PreviousBuild(VCRAFile arcvinfo, ARCVManifest manifest, FileChannel data) {
+            arcvinfo.getEntries().forEach(a -> entries.put(a.getPath(), a));
+            this.manifest = manifest;
+            this.data = data;
+        }
+        
+        /**
+         * Loads the previous build from the given directory.
+         * 
+         * @return the previous build or null if the directory doesn't contain a complete one
+         */
+        static PreviousBuild load(File outputDir) throws IOException {
+            File infoFile = new File(outputDir, "ARCVINFO.BIN");
+            File dataFile = new File(outputDir, "ARCV0.BIN");
+            File manifestFile = new File(outputDir, ARCVManifest.FILE_NAME);
+            
+            if (!infoFile.exists() || !dataFile.exists() || !manifestFile.exists()) {
+                Main.LOGGER.info("No previous build found, adding all files.");
+                return null;
+            }
+            
+            // not mapped, the files get replaced once the build is done
+            try (Access access = new FileAccess(infoFile, true)) {
+                return new PreviousBuild(new VCRAFile(access), new ARCVManifest(manifestFile),
+                                         FileChannel.open(dataFile.toPath(), StandardOpenOption.READ));
+            }
+        }
+        
+        /**
+         * Gets the entry of the given file, if its data can be reused as it is.
+         * 
+         * @param name the path of the file
+         * @param hash the hash of the current content of the file
+         * @param compressed whether the file is supposed to be compressed
+         * @return the entry of the previous build or null if the file has to be added again
+         */
+        VCRAEntry getReusable(String name, String hash, boolean compressed) {
+            VCRAEntry entry = entries.get(name);
+            
+            if (entry == null || !hash.equals(manifest.getHash(name)) || entry.isCompressed() != compressed)
+                return null;
+            
+            return entry;
+        }
+        
+        void copySectors(int sector, int count, FileChannel destination) throws IOException {
+            long position = sector * 0x800L;
+            long remaining = count * 0x800L;
+            
+            while (remaining > 0) {
+                long transferred = data.transferTo(position, remaining, destination);
+                if (transferred <= 0)
+                    throw new IOException("Previous ARCV0.BIN ended unexpectedly at " + position);
+                
+                position += transferred;
+                remaining -= transferred;
+            }
+        }
+        
+        @Override
+        public void close() throws IOException {
+            data.close();
+        }
+    }
 }
@@ -0,0 +1,166 @@
+package net.digimonworld.decodetools.arcv;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import net.digimonworld.decodetools.core.Access;
+import net.digimonworld.decodetools.core.MappedFileAccess;
+import net.digimonworld.decodetools.core.StreamAccess;
+
+/**
+ * Gives random access to the files of an ARCV archive, without extracting it.
+ * <p>
+ * Stored files are read straight from the mapped ARCV0.BIN. Compressed files get inflated when they're opened and are
+ * kept in a cache of recently used files, bounded by their total uncompressed size.
+ * </p>
+ */
+public class ARCVFileSystem implements Closeable {
+    /**
+     * The default maximum size of the cache of inflated files, in bytes.
+     */
+    public static final long DEFAULT_CACHE_SIZE = 64L * 1024 * 1024;
+    
+    private final Map<String, VCRAEntry> entries = new HashMap<>();
+    private final Map<String, byte[]> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private final MappedFileAccess arcv;
+    private final long maxCacheSize;
+    
+    private long cacheSize = 0;
+    
+    /**
+     * Opens the archive in the given directory.
+     * 
+     * @param arcvDir the directory containing ARCVINFO.BIN and ARCV0.BIN
+     * @param maxCacheSize the maximum total size of the cached inflated files, in bytes
+     * @throws IOException if anything goes wrong reading the archive
+     */
+    public ARCVFileSystem(File arcvDir, long maxCacheSize) throws IOException {
+        try (Access info = new MappedFileAccess(new File(arcvDir, "ARCVINFO.BIN"))) {
+            new VCRAFile(info).getEntries().forEach(a -> entries.put(a.getPath(), a));
+        }
+        
+        this.arcv = new MappedFileAccess(new File(arcvDir, "ARCV0.BIN"));
+        this.maxCacheSize = maxCacheSize;
+    }
+    
+    /**
+     * Opens the archive in the given directory, with a cache of {@link #DEFAULT_CACHE_SIZE} bytes.
+     * 
+     * @param arcvDir the directory containing ARCVINFO.BIN and ARCV0.BIN
+     * @throws IOException if anything goes wrong reading the archive
+     */
+    public ARCVFileSystem(File arcvDir) throws IOException {
+        this(arcvDir, DEFAULT_CACHE_SIZE);
+    }
+    
+    /**
+     * Gets the paths of all files in the archive.
+     * 
+     * @return an unmodifiable set of the paths
+     */
+    public Set<String> getPaths() {
+        return Collections.unmodifiableSet(entries.keySet());
+    }
+    
+    public boolean exists(String path) {
+        return entries.containsKey(path);
+    }
+    
+    /**
+     * Gets the entry of the given path.
+     * 
+     * @param path the path of the file, as stored in the archive
+     * @return the entry or null if the archive doesn't contain the path
+     */
+    public VCRAEntry getEntry(String path) {
+        return entries.get(path);
+    }
+    
+    /**
+     * Opens the file with the given path for reading.
+     * <p>
+     * The returned Access is read only and only valid as long as this instance is open. Closing it is not required.
+     * </p>
+     * 
+     * @param path the path of the file, as stored in the archive
+     * @return an Access of the uncompressed content of the file
+     * @throws FileNotFoundException if the archive doesn't contain the path
+     * @throws IOException if the file couldn't be inflated
+     */
+    public Access open(String path) throws IOException {
+        VCRAEntry entry = entries.get(path);
+        if (entry == null)
+            throw new FileNotFoundException("ARCV does not contain " + path);
+        
+        if (entry.getCompressedSize() == entry.getUnpackedSize())
+            return arcv.slice(entry.getSector() * 0x800L, entry.getUnpackedSize());
+        
+        return new StreamAccess(ByteBuffer.wrap(getInflated(entry)).asReadOnlyBuffer());
+    }
+    
+    private synchronized byte[] getInflated(VCRAEntry entry) throws IOException {
+        byte[] data = cache.get(entry.getPath());
+        if (data != null)
+            return data;
+        
+        data = inflate(entry);
+        cache.put(entry.getPath(), data);
+        cacheSize += data.length;
+        
+        // evict the least recently used files, but always keep the newest one
+        Iterator<byte[]> itr = cache.values().iterator();
+        while (cacheSize > maxCacheSize && cache.size() > 1) {
+            cacheSize -= itr.next().length;
+            itr.remove();
+        }
+        
+        return data;
+    }
+    
+    private byte[] inflate(VCRAEntry entry) throws IOException {
+        byte[] data = new byte[entry.getUnpackedSize()];
+        Inflater inflater = new Inflater();
+        
+        try {
+            inflater.setInput(arcv.getBuffer(entry.getSector() * 0x800L, entry.getCompressedSize()));
+            
+            int length = 0;
+            while (length < data.length && !inflater.finished()) {
+                int inflated = inflater.inflate(data, length, data.length - length);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+                    break;
+                
+                length += inflated;
+            }
+            
+            if (length != data.length)
+                throw new IOException("Compressed data of " + entry.getPath() + " ended unexpectedly.");
+        }
+        catch (DataFormatException e) {
+            throw new IOException("Compressed data of " + entry.getPath() + " is invalid.", e);
+        }
+        finally {
+            inflater.end();
+        }
+        
+        return data;
+    }
+    
+    @Override
+    public synchronized void close() {
+        cache.clear();
+        cacheSize = 0;
+        arcv.close();
+    }
+}
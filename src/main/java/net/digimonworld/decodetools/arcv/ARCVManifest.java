@@ -0,0 +1,80 @@
+package net.digimonworld.decodetools.arcv;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/*
+ * ARCV Manifest Format – text, one line per file
+ * string - Base64 encoded SHA-256 hash of the uncompressed file
+ * char   - space
+ * string - path of the file, as stored in the VCRA
+ */
+public class ARCVManifest {
+    public static final String FILE_NAME = "ARCVHASH.TXT";
+    
+    private static final String HASH_ALGORITHM = "SHA-256";
+    
+    private final Map<String, String> hashes;
+    
+    public ARCVManifest() {
+        this.hashes = new HashMap<>();
+    }
+    
+    public ARCVManifest(File file) throws IOException {
+        this();
+        
+        for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+            int split = line.indexOf(' ');
+            if (split != -1)
+                hashes.put(line.substring(split + 1), line.substring(0, split));
+        }
+    }
+    
+    /**
+     * Gets the hash of the given path or null if the manifest doesn't contain it.
+     * 
+     * @param path the path of the file, as stored in the VCRA
+     * @return the hash of the file
+     */
+    public String getHash(String path) {
+        return hashes.get(path);
+    }
+    
+    public void putHash(String path, String hash) {
+        hashes.put(path, hash);
+    }
+    
+    public void save(File file) throws IOException {
+        List<String> lines = hashes.entrySet().stream().sorted(Map.Entry.comparingByKey()).map(a -> a.getValue() + " " + a.getKey())
+                                   .collect(Collectors.toList());
+        Files.write(file.toPath(), lines, StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Calculates the hash of the given data, as stored in the manifest.
+     * 
+     * @param data the data to hash, it gets consumed
+     * @return the hash of the data
+     */
+    public static String hash(ByteBuffer data) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance(HASH_ALGORITHM);
+            digest.update(data);
+            return Base64.getEncoder().encodeToString(digest.digest());
+        }
+        catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -33,7 +33,8 @@ public class VCRAEntry {
         filePath = source.readASCIIString(source.readInteger());
         sector = source.readInteger();
         
-        marv = new MARVEntry(ByteBuffer.wrap(source.readByteArray(0x20, source.readInteger())));
+        int marvPointer = source.readInteger();
+        marv = marvPointer == 0 ? null : new MARVEntry(ByteBuffer.wrap(source.readByteArray(0x20, marvPointer)));
         source.readInteger(); // always 0x00000000
         isCompressed = source.readInteger() == 1;
     }
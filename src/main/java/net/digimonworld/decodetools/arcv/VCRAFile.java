@@ -2,14 +2,29 @@ package net.digimonworld.decodetools.arcv;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 import java.util.logging.Level;
 import java.util.stream.Collectors;
 import java.util.zip.DataFormatException;
@@ -17,7 +32,7 @@ import java.util.zip.Inflater;
 
 import net.digimonworld.decodetools.Main;
 import net.digimonworld.decodetools.core.Access;
-import net.digimonworld.decodetools.core.FileAccess;
+import net.digimonworld.decodetools.core.CachedFileAccess;
 
 /*
  * VCRA Format – 0x20
@@ -35,6 +50,7 @@ public class VCRAFile {
     private static final int VERSION = 0x00000102; // ?
     
     private static final int SECTOR_SIZE = 0x800;
+    private static final int EXTRACT_THREADS = Runtime.getRuntime().availableProcessors();
     
     private List<VCRAEntry> entries = new ArrayList<>();
     
@@ -64,30 +80,97 @@ public class VCRAFile {
         entries.add(entry);
     }
     
+    public List<VCRAEntry> getEntries() {
+        return entries;
+    }
+    
     public void extractARCV(Path inputARCV, Path outputDir) {
-        try(Access arcv = new FileAccess(inputARCV.toFile())) {
-            for(VCRAEntry entry : entries) {
-                
-                Path outputFile = outputDir.resolve(entry.getPath());
-                byte[] raw = arcv.readByteArray(entry.getCompressedSize(), entry.getSector() * 0x800L);
-                byte[] output;
-                
-                if(entry.getCompressedSize() == entry.getUnpackedSize())
-                    output = raw;
-                else {
-                    output = new byte[entry.getUnpackedSize()];
-                    Inflater inflater = new Inflater();
-                    inflater.setInput(raw);
-                    inflater.inflate(output);
-                }
-                
-                Files.createDirectories(outputFile.getParent());
-                Files.write(outputFile, output, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        extractARCV(inputARCV, outputDir, null, null);
+    }
+    
+    /**
+     * Extracts the files of this VCRA from the given ARCV file, in parallel.
+     * <p>
+     * Every file is streamed from the ARCV file through an {@link Inflater} into its output file, without holding it in
+     * memory as a whole. The ARCV file is read through positional reads rather than mapped, so it can be replaced right
+     * after, e.g. by rebuilding into the same directory. Failing files get logged and skipped.
+     * </p>
+     * 
+     * @param inputARCV the ARCV file containing the data, i.e. ARCV0.BIN
+     * @param outputDir the directory to extract into
+     * @param glob a glob pattern the paths of the extracted files have to match, or null to extract all files
+     * @param progress gets called with the number of processed and the total number of files after each file, may be
+     *            null
+     */
+    public void extractARCV(Path inputARCV, Path outputDir, String glob, BiConsumer<Integer, Integer> progress) {
+        PathMatcher matcher = glob == null ? null : FileSystems.getDefault().getPathMatcher("glob:" + glob);
+        List<VCRAEntry> selected = entries.stream().filter(a -> matcher == null || matcher.matches(Paths.get(a.getPath())))
+                                          .collect(Collectors.toList());
+        
+        AtomicInteger processed = new AtomicInteger();
+        Queue<Decompressor> pool = new ConcurrentLinkedQueue<>();
+        ExecutorService executor = Executors.newFixedThreadPool(EXTRACT_THREADS);
+        
+        try (FileChannel arcv = FileChannel.open(inputARCV, StandardOpenOption.READ)) {
+            List<Future<?>> tasks = new ArrayList<>();
+            
+            for (VCRAEntry entry : selected) {
+                tasks.add(executor.submit(() -> {
+                    Decompressor decompressor = Optional.ofNullable(pool.poll()).orElseGet(Decompressor::new);
+                    
+                    try {
+                        decompressor.extract(arcv, entry, outputDir.resolve(entry.getPath()));
+                    }
+                    catch (IOException | DataFormatException | RuntimeException e) {
+                        Main.LOGGER.log(Level.SEVERE, e, () -> "Exception while extracting " + entry.getPath() + " from ARCV: ");
+                    }
+                    finally {
+                        pool.offer(decompressor);
+                    }
+                    
+                    if (progress != null)
+                        progress.accept(processed.incrementAndGet(), selected.size());
+                }));
             }
+            
+            for (Future<?> task : tasks)
+                task.get();
         }
-        catch (IOException | DataFormatException e) {
+        catch (IOException | ExecutionException e) {
             Main.LOGGER.log(Level.SEVERE, "Exception while extracting ARCV: ", e);
         }
+        catch (InterruptedException e) {
+            Main.LOGGER.log(Level.WARNING, "Interrupted while extracting ARCV.", e);
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        finally {
+            // running tasks still use their decompressors, they may only be ended once all tasks are done
+            executor.shutdown();
+            awaitTermination(executor);
+            pool.forEach(Decompressor::end);
+        }
+    }
+    
+    /*
+     * Waits for all tasks of the given executor to finish. An interrupt only cancels the tasks that haven't started yet,
+     * the interrupt status gets restored afterwards.
+     */
+    static void awaitTermination(ExecutorService executor) {
+        boolean interrupted = false;
+        
+        while (!executor.isTerminated()) {
+            try {
+                executor.awaitTermination(1, TimeUnit.SECONDS);
+            }
+            catch (InterruptedException e) {
+                executor.shutdownNow();
+                interrupted = true;
+            }
+        }
+        
+        if (interrupted)
+            Thread.currentThread().interrupt();
     }
     
     public void repack(File file) {
@@ -101,7 +184,7 @@ public class VCRAFile {
             Main.LOGGER.log(Level.WARNING, "Exception while creating new ARCVINFO.BIN.", e1);
         }
         
-        try (Access access = new FileAccess(file)) {
+        try (Access access = new CachedFileAccess(file)) {
             int marvStart = 0x20 + entries.size() * 0x20;
             int pathStart = (int) (marvStart + entries.stream().filter(a -> a.getMARV() != null).count() * 0x20);
             int totalSize = pathStart + entries.stream().collect(Collectors.summingInt(a -> a.getPath().length() + 1));
@@ -148,6 +231,76 @@ public class VCRAFile {
     
 }
 
+/**
+ * Streams single files out of an ARCV file. Instances hold native resources and are meant to be reused, so they have
+ * to be ended once they're not needed anymore.
+ */
+class Decompressor {
+    private static final int BUFFER_SIZE = 0x10000;
+    
+    private final Inflater inflater = new Inflater();
+    private final ByteBuffer input = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    
+    /**
+     * Extracts a single file. The ARCV file is only accessed through positional reads, so it may be shared between
+     * threads.
+     * 
+     * @param arcv the channel of the ARCV file
+     * @param entry the entry of the file to extract
+     * @param outputFile the file to extract into
+     * @throws IOException if reading or writing fails
+     * @throws DataFormatException if the compressed data is invalid
+     */
+    public void extract(FileChannel arcv, VCRAEntry entry, Path outputFile) throws IOException, DataFormatException {
+        long position = entry.getSector() * 0x800L;
+        long end = position + entry.getCompressedSize();
+        
+        Files.createDirectories(outputFile.getParent());
+        try (FileChannel output = FileChannel.open(outputFile, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                                                   StandardOpenOption.TRUNCATE_EXISTING)) {
+            if (entry.getCompressedSize() == entry.getUnpackedSize()) {
+                while (position < end) {
+                    long transferred = arcv.transferTo(position, end - position, output);
+                    if (transferred <= 0)
+                        throw new IOException("Data of " + entry.getPath() + " ended unexpectedly.");
+                    position += transferred;
+                }
+                return;
+            }
+            
+            inflater.reset();
+            
+            while (!inflater.finished()) {
+                if (inflater.needsInput()) {
+                    input.clear();
+                    input.limit((int) Math.min(BUFFER_SIZE, end - position));
+                    
+                    if (!input.hasRemaining() || arcv.read(input, position) <= 0)
+                        throw new DataFormatException("Compressed data of " + entry.getPath() + " ended unexpectedly.");
+                    
+                    position += input.position();
+                    input.flip();
+                    inflater.setInput(input);
+                }
+                
+                buffer.clear();
+                
+                if (inflater.inflate(buffer) == 0 && inflater.needsDictionary())
+                    throw new DataFormatException("Compressed data of " + entry.getPath() + " needs an unknown dictionary.");
+                
+                buffer.flip();
+                while (buffer.hasRemaining())
+                    output.write(buffer);
+            }
+        }
+    }
+    
+    public void end() {
+        inflater.end();
+    }
+}
+
 class VCRAPathComperator implements Comparator<VCRAEntry> {
     @Override
     public int compare(VCRAEntry o1, VCRAEntry o2) {
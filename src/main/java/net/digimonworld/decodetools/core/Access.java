@@ -344,6 +344,33 @@ public interface Access extends Closeable {
      */
     public String readASCIIString(long address);
     
+    /**
+     * Reads a null-terminated {@link String} in the given {@link Charset} from the current position.
+     * Data will be read until a null-terminator has been found, which is as wide as a single encoded null character,
+     * e.g. one byte for ASCII and two bytes for UTF-16. The data before it is then decoded at once.
+     * <p>
+     * This operation increases the current position by the number of bytes read plus the null-terminator.
+     * </p>
+     * 
+     * @param charset the charset to decode the String with
+     * @return the {@link String} read
+     */
+    public String readNullTerminatedString(Charset charset);
+    
+    /**
+     * Reads a null-terminated {@link String} in the given {@link Charset} from the given address.
+     * Data will be read until a null-terminator has been found, which is as wide as a single encoded null character,
+     * e.g. one byte for ASCII and two bytes for UTF-16. The data before it is then decoded at once.
+     * <p>
+     * This operation does not affect the current position.
+     * </p>
+     * 
+     * @param address the position to read from
+     * @param charset the charset to decode the String with
+     * @return the {@link String} read
+     */
+    public String readNullTerminatedString(long address, Charset charset);
+    
     /**
      * Reads an array of byte from the underlying data storage from the current position.
      * <p>
@@ -432,6 +459,159 @@ public interface Access extends Closeable {
         return data;
     }
     
+    /**
+     * Reads an array of int from the underlying data storage from the current position.
+     * <p>
+     * This operation increases the current position by {@code length} times 4.
+     * </p>
+     * 
+     * @param length the length of the array that should be read
+     * @return the array of the given {@code length} filled with the data read
+     */
+    public default int[] readIntArray(int length) {
+        int[] data = new int[length];
+        
+        for(int i = 0; i < length; i++)
+            data[i] = readInteger();
+        
+        return data;
+    }
+    
+    /**
+     * Reads an array of int from the underlying data storage from the current position with an offset.
+     * <p>
+     * This operation does not affect the current position.
+     * </p>
+     * 
+     * @param offset the offset from the current position to read from
+     * @param length the length of the array that should be read
+     * @return the array of the given {@code length} filled with the data read
+     */
+    public default int[] readIntArrayOffset(int length, long offset) {
+        return readIntArray(length, getPosition() + offset);
+    }
+    
+    /**
+     * Reads an array of int from the underlying data storage from the given address.
+     * <p>
+     * This operation does not affect the current position.
+     * </p>
+     * 
+     * @param length the length of the array that should be read
+     * @param address the position to read from
+     * @return the array of the given {@code length} filled with the data read
+     */
+    public default int[] readIntArray(int length, long address) {
+        int[] data = new int[length];
+        
+        for(int i = 0; i < length; i++)
+            data[i] = readInteger(address + i * 4L);
+        
+        return data;
+    }
+    
+    /**
+     * Reads an array of float from the underlying data storage from the current position.
+     * <p>
+     * This operation increases the current position by {@code length} times 4.
+     * </p>
+     * 
+     * @param length the length of the array that should be read
+     * @return the array of the given {@code length} filled with the data read
+     */
+    public default float[] readFloatArray(int length) {
+        float[] data = new float[length];
+        
+        for(int i = 0; i < length; i++)
+            data[i] = readFloat();
+        
+        return data;
+    }
+    
+    /**
+     * Reads an array of float from the underlying data storage from the current position with an offset.
+     * <p>
+     * This operation does not affect the current position.
+     * </p>
+     * 
+     * @param offset the offset from the current position to read from
+     * @param length the length of the array that should be read
+     * @return the array of the given {@code length} filled with the data read
+     */
+    public default float[] readFloatArrayOffset(int length, long offset) {
+        return readFloatArray(length, getPosition() + offset);
+    }
+    
+    /**
+     * Reads an array of float from the underlying data storage from the given address.
+     * <p>
+     * This operation does not affect the current position.
+     * </p>
+     * 
+     * @param length the length of the array that should be read
+     * @param address the position to read from
+     * @return the array of the given {@code length} filled with the data read
+     */
+    public default float[] readFloatArray(int length, long address) {
+        float[] data = new float[length];
+        
+        for(int i = 0; i < length; i++)
+            data[i] = readFloat(address + i * 4L);
+        
+        return data;
+    }
+    
+    /**
+     * Reads an array of char from the underlying data storage from the current position.
+     * <p>
+     * This operation increases the current position by {@code length} times 2.
+     * </p>
+     * 
+     * @param length the length of the array that should be read
+     * @return the array of the given {@code length} filled with the data read
+     */
+    public default char[] readCharArray(int length) {
+        char[] data = new char[length];
+        
+        for(int i = 0; i < length; i++)
+            data[i] = readChar();
+        
+        return data;
+    }
+    
+    /**
+     * Reads an array of char from the underlying data storage from the current position with an offset.
+     * <p>
+     * This operation does not affect the current position.
+     * </p>
+     * 
+     * @param offset the offset from the current position to read from
+     * @param length the length of the array that should be read
+     * @return the array of the given {@code length} filled with the data read
+     */
+    public default char[] readCharArrayOffset(int length, long offset) {
+        return readCharArray(length, getPosition() + offset);
+    }
+    
+    /**
+     * Reads an array of char from the underlying data storage from the given address.
+     * <p>
+     * This operation does not affect the current position.
+     * </p>
+     * 
+     * @param length the length of the array that should be read
+     * @param address the position to read from
+     * @return the array of the given {@code length} filled with the data read
+     */
+    public default char[] readCharArray(int length, long address) {
+        char[] data = new char[length];
+        
+        for(int i = 0; i < length; i++)
+            data[i] = readChar(address + i * 2L);
+        
+        return data;
+    }
+    
     /**
      * Writes a byte to the underlying data storage at the current position.
      * <p>
@@ -779,6 +959,123 @@ public interface Access extends Closeable {
             writeShort(data[i], start + i * 2);
     }
     
+    /**
+     * Writes an array of integers to the underlying data storage at the current position.
+     * <p>
+     * This operation increases the current position by the number of bytes in the array.
+     * </p>
+     * 
+     * @param data the array to write
+     */
+    public default void writeIntArray(int[] data) {
+        for(int d : data)
+            writeInteger(d);
+    }
+    
+    /**
+     * Writes an array of integers to the underlying data storage at the current position with an offset.
+     * <p>
+     * This operation does not affect the current position.
+     * </p>
+     * 
+     * @param data the array to write
+     * @param offset the offset from the current position to write to
+     */
+    public default void writeIntArrayOffset(int[] data, long offset) {
+        writeIntArray(data, getPosition() + offset);
+    }
+    
+    /**
+     * Writes an array of integers to the underlying data storage at the given address.
+     * <p>
+     * This operation does not affect the current position.
+     * </p>
+     * 
+     * @param data the array to write
+     */
+    public default void writeIntArray(int[] data, long start) {
+        for(int i = 0; i < data.length; i++)
+            writeInteger(data[i], start + i * 4L);
+    }
+    
+    /**
+     * Writes an array of floats to the underlying data storage at the current position.
+     * <p>
+     * This operation increases the current position by the number of bytes in the array.
+     * </p>
+     * 
+     * @param data the array to write
+     */
+    public default void writeFloatArray(float[] data) {
+        for(float d : data)
+            writeFloat(d);
+    }
+    
+    /**
+     * Writes an array of floats to the underlying data storage at the current position with an offset.
+     * <p>
+     * This operation does not affect the current position.
+     * </p>
+     * 
+     * @param data the array to write
+     * @param offset the offset from the current position to write to
+     */
+    public default void writeFloatArrayOffset(float[] data, long offset) {
+        writeFloatArray(data, getPosition() + offset);
+    }
+    
+    /**
+     * Writes an array of floats to the underlying data storage at the given address.
+     * <p>
+     * This operation does not affect the current position.
+     * </p>
+     * 
+     * @param data the array to write
+     */
+    public default void writeFloatArray(float[] data, long start) {
+        for(int i = 0; i < data.length; i++)
+            writeFloat(data[i], start + i * 4L);
+    }
+    
+    /**
+     * Writes an array of chars to the underlying data storage at the current position.
+     * <p>
+     * This operation increases the current position by the number of bytes in the array.
+     * </p>
+     * 
+     * @param data the array to write
+     */
+    public default void writeCharArray(char[] data) {
+        for(char d : data)
+            writeChar(d);
+    }
+    
+    /**
+     * Writes an array of chars to the underlying data storage at the current position with an offset.
+     * <p>
+     * This operation does not affect the current position.
+     * </p>
+     * 
+     * @param data the array to write
+     * @param offset the offset from the current position to write to
+     */
+    public default void writeCharArrayOffset(char[] data, long offset) {
+        writeCharArray(data, getPosition() + offset);
+    }
+    
+    /**
+     * Writes an array of chars to the underlying data storage at the given address.
+     * <p>
+     * This operation does not affect the current position.
+     * </p>
+     * 
+     * @param data the array to write
+     */
+    public default void writeCharArray(char[] data, long start) {
+        for(int i = 0; i < data.length; i++)
+            writeChar(data[i], start + i * 2L);
+    }
+    
     /**
      * Gets the current position in the underlying data storage, used for non-absolute access.
      * 
@@ -803,6 +1100,23 @@ public interface Access extends Closeable {
      */
     public long getSize();
     
+    /**
+     * Creates a view of a region of the underlying data storage, without copying it.
+     * <p>
+     * The view starts at position 0, has a size of {@code length} and its own position, independent from this
+     * instance and other views. Writes into the view are visible in this instance and vice versa. Accessing data
+     * outside of the view is not allowed.
+     * </p>
+     * <p>
+     * The view is only valid as long as this instance is open, closing the view does not close this instance.
+     * </p>
+     * 
+     * @param address the position of the region to create a view of
+     * @param length the size of the region, measured in bytes
+     * @return an Access of the given region
+     */
+    public Access slice(long address, long length);
+    
     /**
      * Helper method to get a {@link Charset} based on its name, using {@link Charset#forName(String)}.
      * If the input is invalid, {@link Charset#defaultCharset()} is returned.
@@ -3,11 +3,16 @@ package net.digimonworld.decodetools.core;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * An abstract implementation of {@link Access} that reads and writes into buffers.
  */
 public abstract class BufferedAccess implements Access {
+    private static final int STRING_BLOCK_SIZE = 0x100;
+    private static final Map<Charset, Integer> TERMINATOR_WIDTHS = new ConcurrentHashMap<>();
 
     // We're not thread safe, as we read a file, so we can reuse the buffers
     private final ByteBuffer byteBuf = ByteBuffer.allocate(1);
@@ -15,7 +20,11 @@ public abstract class BufferedAccess implements Access {
     private final ByteBuffer intBuf = ByteBuffer.allocate(4);
     private final ByteBuffer longBuf = ByteBuffer.allocate(8);
     
+    private final ByteOrder byteOrder;
+    
     protected BufferedAccess(ByteOrder byteOrder) {
+        this.byteOrder = byteOrder;
+        
         byteBuf.order(byteOrder);
         shortBuf.order(byteOrder);
         intBuf.order(byteOrder);
@@ -108,26 +117,124 @@ public abstract class BufferedAccess implements Access {
     
     @Override
     public String readASCIIString() {
-        StringBuilder b = new StringBuilder();
+        long address = getPosition();
+        ByteBuffer data = readNullTerminated(address, 1);
+        setPosition(address + data.remaining() + 1);
         
-        byte value;
-        while ((value = readByte()) != 0)
-            b.append((char) value);
-        
-        return b.toString();
+        return toASCIIString(data);
     }
     
     @Override
     public String readASCIIString(long address) {
-        StringBuilder b = new StringBuilder();
+        return toASCIIString(readNullTerminated(address, 1));
+    }
+    
+    private static String toASCIIString(ByteBuffer data) {
+        StringBuilder b = new StringBuilder(data.remaining());
         
-        byte value;
-        while ((value = readByte(address++)) != 0)
-            b.append((char) value);
+        while (data.hasRemaining())
+            b.append((char) data.get());
         
         return b.toString();
     }
     
+    @Override
+    public String readNullTerminatedString(Charset charset) {
+        long address = getPosition();
+        int width = getTerminatorWidth(charset);
+        
+        ByteBuffer data = readNullTerminated(address, width);
+        setPosition(address + data.remaining() + width);
+        
+        return charset.decode(data).toString();
+    }
+    
+    @Override
+    public String readNullTerminatedString(long address, Charset charset) {
+        return charset.decode(readNullTerminated(address, getTerminatorWidth(charset))).toString();
+    }
+    
+    /**
+     * Gets the width of a null-terminator in the given charset, i.e. the number of bytes of an encoded null character.
+     */
+    static int getTerminatorWidth(Charset charset) {
+        // encode two terminators, so byte order marks don't count towards the width
+        return TERMINATOR_WIDTHS.computeIfAbsent(charset, a -> a.encode("\0\0").remaining() - a.encode("\0").remaining());
+    }
+    
+    /**
+     * Reads the data from the given address up to the next null-terminator of the given width, or the end of the data.
+     * <p>
+     * The data is read in blocks of {@link #STRING_BLOCK_SIZE} bytes, so only a few reads are needed per string.
+     * Implementations with direct access to their data should override this and scan it in place.
+     * </p>
+     * 
+     * @return a buffer containing the data without the terminator, positioned at its start
+     */
+    ByteBuffer readNullTerminated(long address, int width) {
+        ByteBuffer data = ByteBuffer.allocate(STRING_BLOCK_SIZE);
+        long available = getSize() - address;
+        int length = 0;
+        
+        while (length < available) {
+            if (data.capacity() - length < STRING_BLOCK_SIZE)
+                data = ByteBuffer.wrap(Arrays.copyOf(data.array(), data.capacity() * 2));
+            
+            int count = (int) Math.min(STRING_BLOCK_SIZE, available - length);
+            readBuffer(data.duplicate().limit(length + count).position(length).slice(), address + length);
+            
+            int end = findTerminator(data, length, length + count, width);
+            if (end != -1)
+                return data.limit(end).position(0);
+            
+            length += count;
+        }
+        
+        return data.limit(length).position(0);
+    }
+    
+    /**
+     * Finds the first null-terminator of the given width within the given range of a buffer.
+     * <p>
+     * For terminators of one or two bytes eight bytes are checked at once, using the "has zero byte" bit trick.
+     * </p>
+     * 
+     * @param buff the buffer to search in
+     * @param start the start of the range, terminators are aligned to it
+     * @param end the end of the range
+     * @param width the width of the terminator
+     * @return the index of the terminator or -1 if there is none in the range
+     */
+    static int findTerminator(ByteBuffer buff, int start, int end, int width) {
+        ByteBuffer data = buff.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int i = start;
+        
+        if (width <= 2) {
+            long ones = width == 1 ? 0x0101010101010101L : 0x0001000100010001L;
+            long highs = ones << (width * 8 - 1);
+            
+            for (; i + 8 <= end; i += 8) {
+                long value = data.getLong(i);
+                long found = (value - ones) & ~value & highs;
+                
+                // only the lowest flagged lane is guaranteed to be zero, which is the one we need
+                if (found != 0)
+                    return i + Long.numberOfTrailingZeros(found) / 8 / width * width;
+            }
+        }
+        
+        for (; i + width <= end; i += width) {
+            int j = 0;
+            while (j < width && data.get(i + j) == 0)
+                j++;
+            
+            if (j == width)
+                return i;
+        }
+        
+        return -1;
+    }
+    
     @Override
     public String readString(int bytes, String charset) {
         Charset localCharset = getCharset(charset);
@@ -166,6 +273,62 @@ public abstract class BufferedAccess implements Access {
         return data;
     }
     
+    @Override
+    public short[] readShortArray(int length) {
+        short[] data = new short[length];
+        readBulk(length * 2).asShortBuffer().get(data);
+        return data;
+    }
+    
+    @Override
+    public short[] readShortArray(int length, long address) {
+        short[] data = new short[length];
+        readBulk(length * 2, address).asShortBuffer().get(data);
+        return data;
+    }
+    
+    @Override
+    public int[] readIntArray(int length) {
+        int[] data = new int[length];
+        readBulk(length * 4).asIntBuffer().get(data);
+        return data;
+    }
+    
+    @Override
+    public int[] readIntArray(int length, long address) {
+        int[] data = new int[length];
+        readBulk(length * 4, address).asIntBuffer().get(data);
+        return data;
+    }
+    
+    @Override
+    public float[] readFloatArray(int length) {
+        float[] data = new float[length];
+        readBulk(length * 4).asFloatBuffer().get(data);
+        return data;
+    }
+    
+    @Override
+    public float[] readFloatArray(int length, long address) {
+        float[] data = new float[length];
+        readBulk(length * 4, address).asFloatBuffer().get(data);
+        return data;
+    }
+    
+    @Override
+    public char[] readCharArray(int length) {
+        char[] data = new char[length];
+        readBulk(length * 2).asCharBuffer().get(data);
+        return data;
+    }
+    
+    @Override
+    public char[] readCharArray(int length, long address) {
+        char[] data = new char[length];
+        readBulk(length * 2, address).asCharBuffer().get(data);
+        return data;
+    }
+    
     @Override
     public void writeByte(byte value) {
         byteBuf.clear();
@@ -313,6 +476,106 @@ public abstract class BufferedAccess implements Access {
         writeBuffer(buff, start);
     }
     
+    @Override
+    public void writeShortArray(short[] data) {
+        ByteBuffer buff = ByteBuffer.allocate(data.length * 2).order(byteOrder);
+        buff.asShortBuffer().put(data);
+        buff.position(buff.capacity());
+        writeBuffer(buff);
+    }
+    
+    @Override
+    public void writeShortArray(short[] data, long start) {
+        ByteBuffer buff = ByteBuffer.allocate(data.length * 2).order(byteOrder);
+        buff.asShortBuffer().put(data);
+        buff.position(buff.capacity());
+        writeBuffer(buff, start);
+    }
+    
+    @Override
+    public void writeIntArray(int[] data) {
+        ByteBuffer buff = ByteBuffer.allocate(data.length * 4).order(byteOrder);
+        buff.asIntBuffer().put(data);
+        buff.position(buff.capacity());
+        writeBuffer(buff);
+    }
+    
+    @Override
+    public void writeIntArray(int[] data, long start) {
+        ByteBuffer buff = ByteBuffer.allocate(data.length * 4).order(byteOrder);
+        buff.asIntBuffer().put(data);
+        buff.position(buff.capacity());
+        writeBuffer(buff, start);
+    }
+    
+    @Override
+    public void writeFloatArray(float[] data) {
+        ByteBuffer buff = ByteBuffer.allocate(data.length * 4).order(byteOrder);
+        buff.asFloatBuffer().put(data);
+        buff.position(buff.capacity());
+        writeBuffer(buff);
+    }
+    
+    @Override
+    public void writeFloatArray(float[] data, long start) {
+        ByteBuffer buff = ByteBuffer.allocate(data.length * 4).order(byteOrder);
+        buff.asFloatBuffer().put(data);
+        buff.position(buff.capacity());
+        writeBuffer(buff, start);
+    }
+    
+    @Override
+    public void writeCharArray(char[] data) {
+        ByteBuffer buff = ByteBuffer.allocate(data.length * 2).order(byteOrder);
+        buff.asCharBuffer().put(data);
+        buff.position(buff.capacity());
+        writeBuffer(buff);
+    }
+    
+    @Override
+    public void writeCharArray(char[] data, long start) {
+        ByteBuffer buff = ByteBuffer.allocate(data.length * 2).order(byteOrder);
+        buff.asCharBuffer().put(data);
+        buff.position(buff.capacity());
+        writeBuffer(buff, start);
+    }
+    
+    /**
+     * Reads the given number of bytes from the current position with a single buffer read.
+     * 
+     * @return the buffer holding the read data, in the byte order of this instance
+     */
+    private ByteBuffer readBulk(int bytes) {
+        ByteBuffer buff = ByteBuffer.allocate(bytes).order(byteOrder);
+        readBuffer(buff);
+        return buff;
+    }
+    
+    /**
+     * Reads the given number of bytes from the given address with a single buffer read.
+     * 
+     * @return the buffer holding the read data, in the byte order of this instance
+     */
+    private ByteBuffer readBulk(int bytes, long address) {
+        ByteBuffer buff = ByteBuffer.allocate(bytes).order(byteOrder);
+        readBuffer(buff, address);
+        return buff;
+    }
+    
+    @Override
+    public Access slice(long address, long length) {
+        return new SliceAccess(this, address, length, byteOrder);
+    }
+    
+    /**
+     * Gets the byte order used by this instance.
+     * 
+     * @return the ByteOrder used when reading/writing
+     */
+    public ByteOrder getByteOrder() {
+        return byteOrder;
+    }
+    
     abstract void readBuffer(ByteBuffer buff);
     
     abstract void readBuffer(ByteBuffer buff, long address);
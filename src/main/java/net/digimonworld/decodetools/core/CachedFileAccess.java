@@ -0,0 +1,266 @@
+package net.digimonworld.decodetools.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * An implementation of {@link Access} that reads and writes from a File through a cache of pages.
+ * <p>
+ * Reads and writes only operate on the cached pages of {@link #PAGE_SIZE} bytes. Modified pages are written back to
+ * the file when they get evicted from the cache, on {@link #flush()} and on {@link #close()}, resulting in few large
+ * writes instead of one write per value.
+ * </p>
+ * As such it can grow in size.
+ */
+public class CachedFileAccess extends BufferedAccess {
+    private static final Logger LOGGER = Logger.getLogger(Access.class.getName());
+    
+    private static final String ERROR_READ = "CachedFileAccess: failed to read from FileChannel";
+    private static final String ERROR_WRITE = "CachedFileAccess: failed to write into FileChannel";
+    
+    private static final StandardOpenOption[] OPEN_OPTIONS = { StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE };
+    
+    /**
+     * The size of a single cached page.
+     */
+    public static final int PAGE_SIZE = 0x10000;
+    /**
+     * The default number of pages kept in the cache.
+     */
+    public static final int DEFAULT_CACHED_PAGES = 16;
+    
+    private final String name;
+    private final FileChannel chan;
+    private final Map<Long, Page> pages;
+    
+    private long position = 0;
+    private long size;
+    
+    /**
+     * Initializes a new instance of this class.
+     * 
+     * @param chan the FileChannel to read and write from
+     * @param name the name to give this instance
+     * @param byteOrder the ByteOrder to use when reading/writing, i.e. Big/Little Endian
+     * @param cachedPages the maximum number of pages to keep in the cache
+     * @throws IOException if anything goes wrong accessing the FileChannel
+     */
+    public CachedFileAccess(FileChannel chan, String name, ByteOrder byteOrder, int cachedPages) throws IOException {
+        super(byteOrder);
+        
+        if (cachedPages <= 0)
+            throw new IllegalArgumentException("The cache must be able to hold at least one page.");
+        
+        this.chan = chan;
+        this.name = name;
+        this.size = chan.size();
+        this.pages = new LinkedHashMap<>(cachedPages, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+            
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Page> eldest) {
+                if (size() <= cachedPages)
+                    return false;
+                
+                writePage(eldest.getValue());
+                return true;
+            }
+        };
+    }
+    
+    /**
+     * Initializes a new instance of this class.
+     * <p>
+     * A FileChannel will be opened based on the given file, using
+     * {@link FileChannel#open(java.nio.file.Path, java.nio.file.OpenOption...)}. The name will be set to the name of
+     * the file. The byte order will be set to Little Endian.
+     * </p>
+     * 
+     * @param file the file to read and write from
+     * @param cachedPages the maximum number of pages to keep in the cache
+     * @throws IOException if anything goes wrong opening the file
+     */
+    @SuppressWarnings("resource")
+    public CachedFileAccess(File file, int cachedPages) throws IOException {
+        this(FileChannel.open(file.toPath(), OPEN_OPTIONS), file.getPath(), ByteOrder.LITTLE_ENDIAN, cachedPages);
+    }
+    
+    /**
+     * Initializes a new instance of this class.
+     * <p>
+     * A FileChannel will be opened based on the given file, using
+     * {@link FileChannel#open(java.nio.file.Path, java.nio.file.OpenOption...)}. The name will be set to the name of
+     * the file. The byte order will be set to Little Endian. The cache will hold up to {@link #DEFAULT_CACHED_PAGES}.
+     * </p>
+     * 
+     * @param file the file to read and write from
+     * @throws IOException if anything goes wrong opening the file
+     */
+    public CachedFileAccess(File file) throws IOException {
+        this(file, DEFAULT_CACHED_PAGES);
+    }
+    
+    @Override
+    public long getPosition() {
+        return position;
+    }
+    
+    @Override
+    public void setPosition(long address) {
+        // like FileAccess, moving past the end grows the file
+        size = Math.max(size, address);
+        position = address;
+    }
+    
+    @Override
+    public long getSize() {
+        return size;
+    }
+    
+    /**
+     * Writes all modified pages back into the file, in the order of their position.
+     */
+    public void flush() {
+        List<Page> cached = new ArrayList<>(pages.values());
+        cached.sort(Comparator.comparingLong(a -> a.index));
+        cached.forEach(this::writePage);
+        
+        try {
+            // make sure the file has the expected size, even if the last bytes were never written
+            if (chan.size() < size)
+                chan.write(ByteBuffer.allocate(1), size - 1);
+        }
+        catch (IOException e) {
+            LOGGER.log(Level.SEVERE, ERROR_WRITE, e);
+        }
+    }
+    
+    @Override
+    public void close() throws IOException {
+        flush();
+        pages.clear();
+        chan.close();
+    }
+    
+    /**
+     * Returns the name of the CachedFileAccess, as given to the constructor.
+     * 
+     * @return the name of the CachedFileAccess
+     */
+    public String getName() {
+        return name;
+    }
+    
+    private Page getPage(long index) {
+        Page page = pages.get(index);
+        
+        if (page == null) {
+            page = new Page(index);
+            readPage(page);
+            pages.put(index, page);
+        }
+        
+        return page;
+    }
+    
+    private void readPage(Page page) {
+        ByteBuffer buffer = ByteBuffer.wrap(page.data);
+        long start = page.index * PAGE_SIZE;
+        
+        try {
+            while (buffer.hasRemaining() && chan.read(buffer, start + buffer.position()) > 0) {
+                // read until the page is full or the end of the file is reached
+            }
+        }
+        catch (IOException e) {
+            LOGGER.log(Level.SEVERE, ERROR_READ, e);
+        }
+    }
+    
+    private void writePage(Page page) {
+        if (!page.dirty)
+            return;
+        
+        long start = page.index * PAGE_SIZE;
+        ByteBuffer buffer = ByteBuffer.wrap(page.data, 0, (int) Math.min(PAGE_SIZE, size - start));
+        
+        try {
+            while (buffer.hasRemaining())
+                chan.write(buffer, start + buffer.position());
+        }
+        catch (IOException e) {
+            LOGGER.log(Level.SEVERE, ERROR_WRITE, e);
+        }
+        
+        page.dirty = false;
+    }
+    
+    @Override
+    void readBuffer(ByteBuffer buff) {
+        readBuffer(buff, position);
+        position += buff.remaining();
+    }
+    
+    @Override
+    void readBuffer(ByteBuffer buff, long address) {
+        buff.clear();
+        
+        while (buff.hasRemaining()) {
+            Page page = getPage(address / PAGE_SIZE);
+            int offset = (int) (address % PAGE_SIZE);
+            int length = Math.min(buff.remaining(), PAGE_SIZE - offset);
+            
+            buff.put(page.data, offset, length);
+            address += length;
+        }
+        
+        buff.flip();
+    }
+    
+    @Override
+    void writeBuffer(ByteBuffer buff) {
+        int length = buff.position();
+        writeBuffer(buff, position);
+        position += length;
+    }
+    
+    @Override
+    void writeBuffer(ByteBuffer buff, long address) {
+        buff.flip();
+        
+        // grow first, so pages evicted while writing are written with their new size
+        size = Math.max(size, address + buff.remaining());
+        
+        while (buff.hasRemaining()) {
+            Page page = getPage(address / PAGE_SIZE);
+            int offset = (int) (address % PAGE_SIZE);
+            int length = Math.min(buff.remaining(), PAGE_SIZE - offset);
+            
+            buff.get(page.data, offset, length);
+            page.dirty = true;
+            address += length;
+        }
+    }
+    
+    private static class Page {
+        private final long index;
+        private final byte[] data = new byte[PAGE_SIZE];
+        
+        private boolean dirty = false;
+        
+        public Page(long index) {
+            this.index = index;
+        }
+    }
+}
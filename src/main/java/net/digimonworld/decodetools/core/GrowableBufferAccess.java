@@ -0,0 +1,232 @@
+package net.digimonworld.decodetools.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.GatheringByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * An implementation of {@link Access} that reads and writes into memory, backed by a list of direct buffer segments.
+ * <p>
+ * Segments are {@link #SEGMENT_SIZE} bytes large and get added as needed, so unlike {@link StreamAccess} it grows
+ * while being written to. Closing the instance returns the segments into a shared pool for later reuse, so it has to
+ * be closed once the data is not needed anymore.
+ * </p>
+ * As such it can grow in size.
+ */
+public class GrowableBufferAccess extends BufferedAccess {
+    /**
+     * The size of a single segment.
+     */
+    public static final int SEGMENT_SIZE = 0x10000;
+    
+    private static final int MAX_POOLED_SEGMENTS = 256;
+    private static final ByteBuffer ZEROES = ByteBuffer.allocateDirect(SEGMENT_SIZE).asReadOnlyBuffer();
+    private static final Queue<ByteBuffer> POOL = new ConcurrentLinkedQueue<>();
+    
+    private final List<ByteBuffer> segments = new ArrayList<>();
+    
+    private long position = 0;
+    private long size = 0;
+    
+    /**
+     * Initialises a new, empty instance of this class.
+     * 
+     * @param byteOrder the ByteOrder to use when reading/writing, i.e. Big/Little Endian
+     */
+    public GrowableBufferAccess(ByteOrder byteOrder) {
+        super(byteOrder);
+    }
+    
+    /**
+     * Initialises a new, empty instance of this class.
+     * <p>
+     * The byte order will be set to Little Endian.
+     * </p>
+     */
+    public GrowableBufferAccess() {
+        this(ByteOrder.LITTLE_ENDIAN);
+    }
+    
+    private static ByteBuffer acquireSegment() {
+        ByteBuffer segment = POOL.poll();
+        
+        if (segment == null)
+            return ByteBuffer.allocateDirect(SEGMENT_SIZE);
+        
+        segment.clear();
+        segment.put(ZEROES.duplicate());
+        segment.clear();
+        return segment;
+    }
+    
+    private static void releaseSegment(ByteBuffer segment) {
+        // the size check is racy, but it only has to keep the pool from growing indefinitely
+        if (POOL.size() < MAX_POOLED_SEGMENTS)
+            POOL.offer(segment);
+    }
+    
+    @Override
+    public long getPosition() {
+        return position;
+    }
+    
+    @Override
+    public void setPosition(long address) {
+        // like FileAccess, moving past the end grows the data with zeroes
+        size = Math.max(size, address);
+        position = address;
+    }
+    
+    @Override
+    public long getSize() {
+        return size;
+    }
+    
+    @Override
+    public void close() {
+        segments.forEach(GrowableBufferAccess::releaseSegment);
+        segments.clear();
+        position = 0;
+        size = 0;
+    }
+    
+    /**
+     * Gets read only views of the written data, in order and without copying it.
+     * <p>
+     * The views are only valid until this instance is closed.
+     * </p>
+     * 
+     * @return the views of the data, with a combined size of {@link #getSize()}
+     */
+    public ByteBuffer[] getBuffers() {
+        List<ByteBuffer> buffers = new ArrayList<>();
+        
+        for (long start = 0; start < size; start += SEGMENT_SIZE) {
+            int length = (int) Math.min(SEGMENT_SIZE, size - start);
+            int index = (int) (start / SEGMENT_SIZE);
+            
+            // segments past the last write were never allocated, they're all zero
+            ByteBuffer source = index < segments.size() ? segments.get(index) : ZEROES;
+            buffers.add(source.asReadOnlyBuffer().limit(length).position(0));
+        }
+        
+        return buffers.toArray(new ByteBuffer[0]);
+    }
+    
+    /**
+     * Writes the whole data into the given channel at its current position, using a single gathering write where
+     * possible.
+     * 
+     * @param chan the channel to write into
+     * @throws IOException if anything goes wrong writing into the channel
+     */
+    public void writeTo(GatheringByteChannel chan) throws IOException {
+        writeTo(chan, getBuffers());
+    }
+    
+    /**
+     * Writes the given buffers into the given channel at its current position, using a single gathering write where
+     * possible.
+     * 
+     * @param chan the channel to write into
+     * @param buffers the buffers to write
+     * @throws IOException if anything goes wrong writing into the channel
+     */
+    public static void writeTo(GatheringByteChannel chan, ByteBuffer... buffers) throws IOException {
+        long remaining = 0;
+        for (ByteBuffer buffer : buffers)
+            remaining += buffer.remaining();
+        
+        while (remaining > 0)
+            remaining -= chan.write(buffers);
+    }
+    
+    /**
+     * Writes the whole data into the given {@link Access} at its current position, without creating intermediate
+     * copies if possible.
+     * 
+     * @param dest the Access to write into
+     */
+    public void writeTo(Access dest) {
+        for (ByteBuffer buffer : getBuffers()) {
+            if (dest instanceof BufferedAccess) {
+                // writeBuffer expects a buffer that still has to be flipped
+                buffer.position(buffer.limit());
+                ((BufferedAccess) dest).writeBuffer(buffer);
+            }
+            else {
+                byte[] data = new byte[buffer.remaining()];
+                buffer.get(data);
+                dest.writeByteArray(data);
+            }
+        }
+    }
+    
+    @Override
+    public void writeByteArray(byte[] data) {
+        writeBuffer(ByteBuffer.wrap(data).position(data.length));
+    }
+    
+    @Override
+    public void writeByteArray(byte[] data, long start) {
+        writeBuffer(ByteBuffer.wrap(data).position(data.length), start);
+    }
+    
+    @Override
+    void readBuffer(ByteBuffer buff) {
+        readBuffer(buff, position);
+        position += buff.remaining();
+    }
+    
+    @Override
+    void readBuffer(ByteBuffer buff, long address) {
+        buff.clear();
+        
+        while (buff.hasRemaining()) {
+            int index = (int) (address / SEGMENT_SIZE);
+            int offset = (int) (address % SEGMENT_SIZE);
+            int length = Math.min(buff.remaining(), SEGMENT_SIZE - offset);
+            
+            ByteBuffer source = index < segments.size() ? segments.get(index) : ZEROES;
+            buff.put(source.duplicate().limit(offset + length).position(offset));
+            address += length;
+        }
+        
+        buff.flip();
+    }
+    
+    @Override
+    void writeBuffer(ByteBuffer buff) {
+        int length = buff.position();
+        writeBuffer(buff, position);
+        position += length;
+    }
+    
+    @Override
+    void writeBuffer(ByteBuffer buff, long address) {
+        buff.flip();
+        
+        size = Math.max(size, address + buff.remaining());
+        
+        while (buff.hasRemaining()) {
+            int index = (int) (address / SEGMENT_SIZE);
+            int offset = (int) (address % SEGMENT_SIZE);
+            int length = Math.min(buff.remaining(), SEGMENT_SIZE - offset);
+            
+            while (segments.size() <= index)
+                segments.add(acquireSegment());
+            
+            ByteBuffer source = buff.duplicate();
+            source.limit(source.position() + length);
+            
+            segments.get(index).duplicate().position(offset).put(source);
+            buff.position(buff.position() + length);
+            address += length;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package net.digimonworld.decodetools.core;
+
+import java.util.function.ToIntFunction;
+
+/**
+ * An immutable map from 4-byte magic values to constants, e.g. of an enum.
+ * <p>
+ * It uses open addressing over a power of two sized table, so lookups take constant time and don't allocate anything,
+ * unlike iterating over {@code values()} or boxing the key for a {@link java.util.HashMap}. A magic value of 0 means
+ * that a constant has none, those are not added.
+ * </p>
+ * 
+ * @param <T> the type of the constants
+ */
+public class MagicValueMap<T> {
+    private final int[] keys;
+    private final Object[] values;
+    private final int shift;
+    
+    /**
+     * Initialises a new instance of this class.
+     * 
+     * @param constants the constants to add
+     * @param magicValue a function to get the magic value of a constant
+     * @throws IllegalArgumentException if two constants share the same magic value
+     */
+    public MagicValueMap(T[] constants, ToIntFunction<T> magicValue) {
+        // at most half full, to keep the probe sequences short
+        int bits = Math.max(1, 32 - Integer.numberOfLeadingZeros(constants.length * 2 - 1));
+        
+        this.keys = new int[1 << bits];
+        this.values = new Object[1 << bits];
+        this.shift = 32 - bits;
+        
+        for (T constant : constants) {
+            int key = magicValue.applyAsInt(constant);
+            if (key == 0)
+                continue;
+            
+            int i = indexOf(key);
+            if (keys[i] == key)
+                throw new IllegalArgumentException("Duplicate magic value " + Integer.toHexString(key));
+            
+            keys[i] = key;
+            values[i] = constant;
+        }
+    }
+    
+    /**
+     * Gets the constant with the given magic value.
+     * 
+     * @param magicValue the magic value to look for
+     * @param defaultValue the value to return if there is no constant with that magic value
+     * @return the constant with the given magic value or the default value
+     */
+    @SuppressWarnings("unchecked")
+    public T get(int magicValue, T defaultValue) {
+        if (magicValue == 0)
+            return defaultValue;
+        
+        int i = indexOf(magicValue);
+        return keys[i] == magicValue ? (T) values[i] : defaultValue;
+    }
+    
+    /**
+     * Gets the slot of the given key, or the empty slot it would be put into.
+     */
+    private int indexOf(int key) {
+        // Fibonacci hashing, spreads the ASCII magic values evenly over the table
+        int i = (key * 0x9E3779B9) >>> shift;
+        
+        while (keys[i] != 0 && keys[i] != key)
+            i = (i + 1) & (keys.length - 1);
+        
+        return i;
+    }
+}
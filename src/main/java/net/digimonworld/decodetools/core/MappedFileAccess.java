@@ -0,0 +1,350 @@
+package net.digimonworld.decodetools.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An implementation of {@link Access} that reads from a memory mapped File.
+ * <p>
+ * The whole file is mapped in read only mode, so reading doesn't require any system calls once the data is paged in.
+ * Files larger than {@link #CHUNK_SIZE} are mapped in multiple chunks, allowing files larger than 2 GiB to be accessed.
+ * </p>
+ * <p>
+ * Closing it doesn't unmap the file, the mapping is only released once it's garbage collected. On Windows a mapped file
+ * can't be replaced or deleted, so files that might get saved over while the application is running shouldn't be
+ * mapped.
+ * </p>
+ * As such it can neither be written to nor change it's size.
+ */
+public class MappedFileAccess extends BufferedAccess {
+    /**
+     * The maximum size of a single mapped region.
+     */
+    public static final int CHUNK_SIZE = 1 << 30;
+    
+    private static final String ERROR_WRITE = "MappedFileAccess: the underlying file is mapped read only";
+    
+    private final String name;
+    private final long size;
+    private final ByteBuffer[] chunks;
+    
+    private long position = 0;
+    
+    /**
+     * Initializes a new instance of this class.
+     * <p>
+     * The whole content of the given FileChannel will be mapped, the FileChannel itself may be closed afterwards.
+     * </p>
+     * 
+     * @param chan the FileChannel to map, must be readable
+     * @param name the name to give this instance
+     * @param byteOrder the ByteOrder to use when reading, i.e. Big/Little Endian
+     * @throws IOException if anything goes wrong mapping the file
+     */
+    public MappedFileAccess(FileChannel chan, String name, ByteOrder byteOrder) throws IOException {
+        super(byteOrder);
+        
+        this.name = name;
+        this.size = chan.size();
+        this.chunks = mapChunks(chan, byteOrder);
+    }
+    
+    /**
+     * Initializes a new instance of this class.
+     * <p>
+     * The name will be set to the name of the file. The byte order will be set to Little Endian.
+     * </p>
+     * 
+     * @param file the file to map
+     * @throws IOException if anything goes wrong opening or mapping the file
+     */
+    public MappedFileAccess(File file) throws IOException {
+        this(file, ByteOrder.LITTLE_ENDIAN);
+    }
+    
+    /**
+     * Initializes a new instance of this class.
+     * <p>
+     * The name will be set to the name of the file.
+     * </p>
+     * 
+     * @param file the file to map
+     * @param byteOrder the ByteOrder to use when reading, i.e. Big/Little Endian
+     * @throws IOException if anything goes wrong opening or mapping the file
+     */
+    public MappedFileAccess(File file, ByteOrder byteOrder) throws IOException {
+        this(file, file.getPath(), byteOrder);
+    }
+    
+    /**
+     * Initializes a new instance of this class.
+     * <p>
+     * A FileChannel will be opened in read only mode based on the given file and closed again once it has been mapped.
+     * </p>
+     * 
+     * @param file the file to map
+     * @param name the name to give this instance
+     * @param byteOrder the ByteOrder to use when reading, i.e. Big/Little Endian
+     * @throws IOException if anything goes wrong opening or mapping the file
+     */
+    public MappedFileAccess(File file, String name, ByteOrder byteOrder) throws IOException {
+        super(byteOrder);
+        
+        this.name = name;
+        
+        try (FileChannel chan = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            this.size = chan.size();
+            this.chunks = mapChunks(chan, byteOrder);
+        }
+    }
+    
+    private static ByteBuffer[] mapChunks(FileChannel chan, ByteOrder byteOrder) throws IOException {
+        long size = chan.size();
+        ByteBuffer[] chunks = new ByteBuffer[(int) Math.max(1, (size + CHUNK_SIZE - 1) / CHUNK_SIZE)];
+        
+        for (int i = 0; i < chunks.length; i++) {
+            long start = (long) i * CHUNK_SIZE;
+            chunks[i] = chan.map(MapMode.READ_ONLY, start, Math.min(CHUNK_SIZE, size - start)).order(byteOrder);
+        }
+        
+        return chunks;
+    }
+    
+    @Override
+    public long getPosition() {
+        return position;
+    }
+    
+    @Override
+    public void setPosition(long address) {
+        this.position = address;
+    }
+    
+    @Override
+    public long getSize() {
+        return size;
+    }
+    
+    @Override
+    public Access slice(long address, long length) {
+        ByteBuffer chunk = length >= 0 && length <= CHUNK_SIZE ? getChunk(address, (int) length) : null;
+        
+        // views spanning multiple chunks have to go through readBuffer
+        if (chunk == null)
+            return super.slice(address, length);
+        
+        // views within a single chunk are backed by the mapping directly
+        int offset = (int) (address % CHUNK_SIZE);
+        ByteBuffer view = chunk.duplicate();
+        view.limit(offset + (int) length).position(offset);
+        return new StreamAccess(view.slice(), getByteOrder());
+    }
+    
+    @Override
+    public void close() {
+        // nothing to close, the mapping gets released once it's garbage collected
+    }
+    
+    /**
+     * Returns the name of the MappedFileAccess, as given to the constructor.
+     * 
+     * @return the name of the MappedFileAccess
+     */
+    public String getName() {
+        return name;
+    }
+    
+    /**
+     * Gets a read only view of the given region of the file.
+     * <p>
+     * Regions within a single chunk are returned without copying, others are copied into a new buffer. Unlike the
+     * read methods this doesn't touch any shared state, so it may be called from multiple threads at once.
+     * </p>
+     * 
+     * @param address the position of the region
+     * @param length the size of the region, measured in bytes
+     * @return a buffer containing the given region, positioned at its start
+     */
+    public ByteBuffer getBuffer(long address, int length) {
+        ByteBuffer chunk = getChunk(address, length);
+        
+        if (chunk == null) {
+            ByteBuffer buff = ByteBuffer.allocate(length);
+            readBuffer(buff, address);
+            return buff.asReadOnlyBuffer();
+        }
+        
+        int offset = (int) (address % CHUNK_SIZE);
+        ByteBuffer view = chunk.duplicate();
+        view.limit(offset + length).position(offset);
+        return view.slice();
+    }
+    
+    /**
+     * Gets the chunk containing the given address, if the given number of bytes starting at it are within that chunk.
+     * 
+     * @return the chunk containing the requested bytes or null if they span multiple chunks or exceed the file
+     */
+    private ByteBuffer getChunk(long address, int bytes) {
+        if (address < 0 || address >= size || address + bytes > size)
+            return null;
+        
+        int offset = (int) (address % CHUNK_SIZE);
+        if (offset + bytes > CHUNK_SIZE)
+            return null;
+        
+        return chunks[(int) (address / CHUNK_SIZE)];
+    }
+    
+    @Override
+    public byte readByte(long address) {
+        ByteBuffer chunk = getChunk(address, 1);
+        return chunk != null ? chunk.get((int) (address % CHUNK_SIZE)) : super.readByte(address);
+    }
+    
+    @Override
+    public short readShort(long address) {
+        ByteBuffer chunk = getChunk(address, 2);
+        return chunk != null ? chunk.getShort((int) (address % CHUNK_SIZE)) : super.readShort(address);
+    }
+    
+    @Override
+    public char readChar(long address) {
+        ByteBuffer chunk = getChunk(address, 2);
+        return chunk != null ? chunk.getChar((int) (address % CHUNK_SIZE)) : super.readChar(address);
+    }
+    
+    @Override
+    public int readInteger(long address) {
+        ByteBuffer chunk = getChunk(address, 4);
+        return chunk != null ? chunk.getInt((int) (address % CHUNK_SIZE)) : super.readInteger(address);
+    }
+    
+    @Override
+    public long readLong(long address) {
+        ByteBuffer chunk = getChunk(address, 8);
+        return chunk != null ? chunk.getLong((int) (address % CHUNK_SIZE)) : super.readLong(address);
+    }
+    
+    @Override
+    public float readFloat(long address) {
+        ByteBuffer chunk = getChunk(address, 4);
+        return chunk != null ? chunk.getFloat((int) (address % CHUNK_SIZE)) : super.readFloat(address);
+    }
+    
+    @Override
+    public double readDouble(long address) {
+        ByteBuffer chunk = getChunk(address, 8);
+        return chunk != null ? chunk.getDouble((int) (address % CHUNK_SIZE)) : super.readDouble(address);
+    }
+    
+    @Override
+    public byte readByte() {
+        byte value = readByte(position);
+        position += 1;
+        return value;
+    }
+    
+    @Override
+    public short readShort() {
+        short value = readShort(position);
+        position += 2;
+        return value;
+    }
+    
+    @Override
+    public char readChar() {
+        char value = readChar(position);
+        position += 2;
+        return value;
+    }
+    
+    @Override
+    public int readInteger() {
+        int value = readInteger(position);
+        position += 4;
+        return value;
+    }
+    
+    @Override
+    public long readLong() {
+        long value = readLong(position);
+        position += 8;
+        return value;
+    }
+    
+    @Override
+    public float readFloat() {
+        float value = readFloat(position);
+        position += 4;
+        return value;
+    }
+    
+    @Override
+    public double readDouble() {
+        double value = readDouble(position);
+        position += 8;
+        return value;
+    }
+    
+    @Override
+    ByteBuffer readNullTerminated(long address, int width) {
+        ByteBuffer chunk = getChunk(address, 1);
+        
+        if (chunk != null) {
+            int start = (int) (address % CHUNK_SIZE);
+            int end = findTerminator(chunk, start, chunk.limit(), width);
+            
+            // strings crossing into the next chunk have to go through readBuffer
+            if (end != -1 || address - start + chunk.limit() == size) {
+                ByteBuffer view = chunk.duplicate();
+                view.limit(end == -1 ? chunk.limit() : end).position(start);
+                return view.slice();
+            }
+        }
+        
+        return super.readNullTerminated(address, width);
+    }
+    
+    @Override
+    void readBuffer(ByteBuffer buff) {
+        readBuffer(buff, position);
+        position += buff.remaining();
+    }
+    
+    @Override
+    void readBuffer(ByteBuffer buff, long address) {
+        buff.clear();
+        
+        while (buff.hasRemaining() && address >= 0 && address < size) {
+            ByteBuffer chunk = chunks[(int) (address / CHUNK_SIZE)].duplicate();
+            int offset = (int) (address % CHUNK_SIZE);
+            int length = Math.min(buff.remaining(), chunk.limit() - offset);
+            
+            chunk.limit(offset + length).position(offset);
+            buff.put(chunk);
+            address += length;
+        }
+        
+        // reading beyond the end of the file yields zeroes
+        while (buff.hasRemaining())
+            buff.put((byte) 0);
+        
+        buff.flip();
+    }
+    
+    @Override
+    void writeBuffer(ByteBuffer buff) {
+        throw new UnsupportedOperationException(ERROR_WRITE);
+    }
+    
+    @Override
+    void writeBuffer(ByteBuffer buff, long address) {
+        throw new UnsupportedOperationException(ERROR_WRITE);
+    }
+}
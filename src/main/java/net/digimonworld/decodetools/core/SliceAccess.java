@@ -0,0 +1,99 @@
+package net.digimonworld.decodetools.core;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * An implementation of {@link Access} that reads and writes a bounded region of another {@link BufferedAccess}.
+ * <p>
+ * All operations are forwarded to the absolute reads and writes of the parent, so the slice has its own position and
+ * doesn't copy any data. It is only valid as long as the parent is open, closing the slice doesn't close the parent.
+ * </p>
+ * As such it can not change it's size.
+ */
+class SliceAccess extends BufferedAccess {
+    private final BufferedAccess parent;
+    private final long start;
+    private final long size;
+    
+    private long position = 0;
+    
+    /**
+     * Initialises a new instance of this class.
+     * 
+     * @param parent the Access to create a view of
+     * @param start the address within the parent the view starts at
+     * @param size the size of the view
+     * @param byteOrder the ByteOrder to use when reading/writing, i.e. Big/Little Endian
+     */
+    SliceAccess(BufferedAccess parent, long start, long size, ByteOrder byteOrder) {
+        super(byteOrder);
+        
+        if (start < 0 || size < 0)
+            throw new IndexOutOfBoundsException("Invalid slice: start " + start + ", size " + size);
+        
+        this.parent = parent;
+        this.start = start;
+        this.size = size;
+    }
+    
+    @Override
+    public long getPosition() {
+        return position;
+    }
+    
+    @Override
+    public void setPosition(long address) {
+        position = address;
+    }
+    
+    @Override
+    public long getSize() {
+        return size;
+    }
+    
+    @Override
+    public Access slice(long address, long length) {
+        if (address < 0 || length < 0 || address + length > size)
+            throw new IndexOutOfBoundsException("Slice exceeds the bounds of this Access.");
+        
+        // don't stack views, create the new one directly on the parent
+        return parent.slice(start + address, length);
+    }
+    
+    @Override
+    public void close() {
+        // the parent owns the data, nothing to close
+    }
+    
+    @Override
+    void readBuffer(ByteBuffer buff) {
+        readBuffer(buff, position);
+        position += buff.remaining();
+    }
+    
+    @Override
+    void readBuffer(ByteBuffer buff, long address) {
+        if (address < 0 || address + buff.capacity() > size)
+            throw new BufferUnderflowException();
+        
+        parent.readBuffer(buff, start + address);
+    }
+    
+    @Override
+    void writeBuffer(ByteBuffer buff) {
+        int length = buff.position();
+        writeBuffer(buff, position);
+        position += length;
+    }
+    
+    @Override
+    void writeBuffer(ByteBuffer buff, long address) {
+        if (address < 0 || address + buff.position() > size)
+            throw new BufferOverflowException();
+        
+        parent.writeBuffer(buff, start + address);
+    }
+}
@@ -1,5 +1,6 @@
 package net.digimonworld.decodetools.core;
 
+import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 
@@ -57,6 +58,13 @@ public class StreamAccess extends BufferedAccess {
         return chan.capacity();
     }
     
+    @Override
+    public Access slice(long address, long length) {
+        ByteBuffer view = chan.duplicate();
+        view.limit((int) (address + length)).position((int) address);
+        return new StreamAccess(view.slice(), getByteOrder());
+    }
+    
     @Override
     public void close() {
         // nothing to close
@@ -71,31 +79,39 @@ public class StreamAccess extends BufferedAccess {
         return chan;
     }
     
+    @Override
+    ByteBuffer readNullTerminated(long address, int width) {
+        int start = (int) address;
+        int end = findTerminator(chan, start, chan.limit(), width);
+        
+        ByteBuffer view = chan.duplicate();
+        view.limit(end == -1 ? chan.limit() : end).position(start);
+        return view.slice();
+    }
+    
     @Override
     void readBuffer(ByteBuffer buff) {
         buff.clear();
         
-        byte[] arr = new byte[buff.capacity()];
-        chan.get(arr);
-        buff.put(arr);
-
+        if (chan.remaining() < buff.remaining())
+            throw new BufferUnderflowException();
+        
+        int length = buff.remaining();
+        buff.put(chan.duplicate().limit(chan.position() + length));
+        chan.position(chan.position() + length);
+        
         buff.flip();
     }
     
     @Override
     void readBuffer(ByteBuffer buff, long address) {
         buff.clear();
-
-        byte[] arr = new byte[buff.capacity()];
         
-        int oldPos = chan.position();
+        if (chan.limit() - address < buff.remaining())
+            throw new BufferUnderflowException();
         
-        chan.position((int) address);
-        chan.get(arr, 0, arr.length);
-        buff.put(arr);
+        buff.put(chan.duplicate().limit((int) address + buff.remaining()).position((int) address));
         
-        chan.position(oldPos);
-
         buff.flip();
     }
     
@@ -109,9 +125,8 @@ public class StreamAccess extends BufferedAccess {
     @Override
     void writeBuffer(ByteBuffer buff, long address) {
         buff.flip();
-
-        for(int i = 0; i < buff.remaining(); i++)
-            chan.put((int) (address + i), buff.get(i));
+        
+        chan.duplicate().position((int) address).put(buff);
     }
 
 }
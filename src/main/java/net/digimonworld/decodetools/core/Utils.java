@@ -2,15 +2,21 @@ package net.digimonworld.decodetools.core;
 
 import java.awt.image.BufferedImage;
 import java.io.File;
+import java.nio.IntBuffer;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import net.digimonworld.decodetools.res.payload.BTXPayload.BTXEntry;
 import net.digimonworld.decodetools.res.payload.BTXPayload.BTXMeta;
 
 public class Utils {
+    // tile tables of power of 2 resolutions, indexed by log2(width) * 32 + log2(height)
+    private static final AtomicReferenceArray<int[]> TILE_TABLES = new AtomicReferenceArray<>(32 * 32);
+
     private Utils() {
     }
 
@@ -311,30 +317,158 @@ public class Utils {
     }
 
     public static int[] untile(short width, short height, int[] pixelData) {
+        int[] table = getTileTable(width, height);
         int[] data = new int[width * height];
 
-        for (int i = 0; i < height; i++)
-            for (int j = 0; j < width; j++) {
-                int posY = height - 1 - i;
-                int coarseY = posY & ~7;
-                int offset = getMortonOffset(j, posY) + coarseY * width;
-                data[i * width + j] = pixelData[offset];
-            }
+        for (int i = 0; i < data.length; i++)
+            data[i] = pixelData[table[i]];
+
         return data;
     }
 
     public static int[] tile(int width, int height, int[] pixelData) {
+        int[] table = getTileTable(width, height);
         int[] data = new int[width * height];
 
+        for (int i = 0; i < data.length; i++)
+            data[table[i]] = pixelData[i];
+
+        return data;
+    }
+
+    /**
+     * Untiles pixel data from one buffer into another, like {@link #untile(short, short, int[])}. Both buffers are
+     * accessed relative to their current position, which doesn't get changed.
+     * 
+     * @param width the width of the texture
+     * @param height the height of the texture
+     * @param source the tiled pixel data
+     * @param dest the buffer to write the untiled pixel data into
+     */
+    public static void untile(int width, int height, IntBuffer source, IntBuffer dest) {
+        int[] table = getTileTable(width, height);
+        int sourceStart = source.position();
+        int destStart = dest.position();
+
+        for (int i = 0; i < table.length; i++)
+            dest.put(destStart + i, source.get(sourceStart + table[i]));
+    }
+
+    /**
+     * Tiles pixel data from one buffer into another, like {@link #tile(int, int, int[])}. Both buffers are accessed
+     * relative to their current position, which doesn't get changed.
+     * 
+     * @param width the width of the texture
+     * @param height the height of the texture
+     * @param source the untiled pixel data
+     * @param dest the buffer to write the tiled pixel data into
+     */
+    public static void tile(int width, int height, IntBuffer source, IntBuffer dest) {
+        int[] table = getTileTable(width, height);
+        int sourceStart = source.position();
+        int destStart = dest.position();
+
+        for (int i = 0; i < table.length; i++)
+            dest.put(destStart + table[i], source.get(sourceStart + i));
+    }
+
+    /**
+     * Untiles pixel data without allocating a second array for it, by following the cycles of the tiling.
+     * 
+     * @param width the width of the texture
+     * @param height the height of the texture
+     * @param pixelData the tiled pixel data, gets replaced by the untiled pixel data
+     */
+    public static void untileInPlace(int width, int height, int[] pixelData) {
+        int[] table = getTileTable(width, height);
+        BitSet done = new BitSet(table.length);
+
+        for (int start = 0; start < table.length; start++) {
+            if (done.get(start))
+                continue;
+
+            // every pixel pulls in its source, until the cycle gets back to the start
+            int first = pixelData[start];
+            int i = start;
+            while (table[i] != start) {
+                pixelData[i] = pixelData[table[i]];
+                done.set(i);
+                i = table[i];
+            }
+            pixelData[i] = first;
+            done.set(i);
+        }
+    }
+
+    /**
+     * Tiles pixel data without allocating a second array for it, by following the cycles of the tiling.
+     * 
+     * @param width the width of the texture
+     * @param height the height of the texture
+     * @param pixelData the untiled pixel data, gets replaced by the tiled pixel data
+     */
+    public static void tileInPlace(int width, int height, int[] pixelData) {
+        int[] table = getTileTable(width, height);
+        BitSet done = new BitSet(table.length);
+
+        for (int start = 0; start < table.length; start++) {
+            if (done.get(start))
+                continue;
+
+            // every pixel gets pushed to its target, carrying the replaced one along
+            int carried = pixelData[start];
+            int i = table[start];
+            done.set(start);
+            while (i != start) {
+                int next = pixelData[i];
+                pixelData[i] = carried;
+                carried = next;
+                done.set(i);
+                i = table[i];
+            }
+            pixelData[start] = carried;
+        }
+    }
+
+    /**
+     * Gets the position of every pixel within the tiled pixel data of a texture, as used by {@link #untile(short, short, int[])}.
+     * The table is indexed by the position of the pixel in the untiled image, which is upside down.
+     * <p>
+     * Textures always have a power of 2 resolution, so their tables are only built once per resolution and shared.
+     * They must not be modified.
+     * </p>
+     * 
+     * @param width the width of the texture
+     * @param height the height of the texture
+     * @return the position in the tiled pixel data for every pixel
+     */
+    public static int[] getTileTable(int width, int height) {
+        if (width == 0 || height == 0 || !isPowOf2(width) || !isPowOf2(height))
+            return buildTileTable(width, height);
+
+        int index = Integer.numberOfTrailingZeros(width) * 32 + Integer.numberOfTrailingZeros(height);
+        int[] table = TILE_TABLES.get(index);
+
+        if (table == null) {
+            // building a table twice when racing is harmless, they're identical
+            TILE_TABLES.compareAndSet(index, null, buildTileTable(width, height));
+            table = TILE_TABLES.get(index);
+        }
+
+        return table;
+    }
+
+    private static int[] buildTileTable(int width, int height) {
+        int[] table = new int[width * height];
+
         for (int i = 0; i < height; i++)
             for (int j = 0; j < width; j++) {
                 int posY = height - 1 - i;
                 int coarseY = posY & ~7;
-                int offset = getMortonOffset(j, posY) + coarseY * width;
-                data[offset] = pixelData[i * width + j];
+                table[i * width + j] = getMortonOffset(j, posY) + coarseY * width;
             }
 
-        return data;
+        return table;
     }
 
     private static int getMortonOffset(int x, int y) {
@@ -2,6 +2,7 @@ package net.digimonworld.decodetools.gui;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.util.Observable;
 import java.util.logging.Level;
 
@@ -12,7 +13,7 @@ import javax.swing.tree.TreeModel;
 
 import net.digimonworld.decodetools.Main;
 import net.digimonworld.decodetools.core.Access;
-import net.digimonworld.decodetools.core.FileAccess;
+import net.digimonworld.decodetools.core.StreamAccess;
 import net.digimonworld.decodetools.gui.util.ResPayloadTreeNodeFactory;
 import net.digimonworld.decodetools.res.ResPayload;
 import net.digimonworld.decodetools.res.ResPayload.Payload;
@@ -30,8 +31,9 @@ public class EditorModel extends Observable {
     }
     
     public void setSelectedFile(File selectedFile) {
-        try (Access access = new FileAccess(selectedFile, true)) {
-            ResPayload file = ResPayload.craft(access);
+        // read into memory, so no mapping or handle of the file is left behind when it gets saved in place
+        try (Access access = new StreamAccess(Files.readAllBytes(selectedFile.toPath()))) {
+            ResPayload file = ResPayload.craftParallel(access);
             
             this.selectedFile = selectedFile;
             setSelectedResource(file);
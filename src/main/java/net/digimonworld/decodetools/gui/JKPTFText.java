@@ -110,8 +110,10 @@ public class JKPTFText extends JComponent {
 
                     
                     if(x1 != x2 && y1 != y2) {
-                        BufferedImage subImage = i.getSubimage(x1, i.getHeight() - y1, x2 - x1, y1 - y2);
+                        // tint a copy, the texture itself must stay unchanged
+                        BufferedImage subImage = new BufferedImage(x2 - x1, y1 - y2, BufferedImage.TYPE_INT_ARGB);
                         Graphics2D b = subImage.createGraphics();
+                        b.drawImage(i.getSubimage(x1, i.getHeight() - y1, x2 - x1, y1 - y2), 0, 0, null);
                         b.setComposite(AlphaComposite.SrcAtop);
                         b.setColor(getForeground());
                         b.fillRect(0, 0, subImage.getWidth(), subImage.getHeight());
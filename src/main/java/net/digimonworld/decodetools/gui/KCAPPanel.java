@@ -23,7 +23,7 @@ import javax.swing.tree.TreeModel;
 
 import net.digimonworld.decodetools.Main;
 import net.digimonworld.decodetools.core.Access;
-import net.digimonworld.decodetools.core.FileAccess;
+import net.digimonworld.decodetools.core.CachedFileAccess;
 import net.digimonworld.decodetools.core.Utils;
 import net.digimonworld.decodetools.gui.util.FunctionAction;
 import net.digimonworld.decodetools.gui.util.ResPayloadTreeNode;
@@ -66,12 +66,13 @@ public class KCAPPanel extends EditorPanel {
             if(file.exists() && !file.delete())
                 Main.LOGGER.severe("Could not delete already existing " + file.getName() + ". Aborting.");
             
-            try (Access dest = new FileAccess(file); ResData data = new ResData()) {
+            try (Access dest = new CachedFileAccess(file); ResData data = new ResData()) {
+                ((ResPayload) selected).resetLayout();
                 ((ResPayload) selected).writeKCAP(dest, data);
                 
                 if(data.getSize() != 0) {
                     dest.setPosition(Utils.align(((ResPayload) selected).getSize(), 0x80));
-                    dest.writeByteArray(data.getStream().toByteArray());
+                    data.writeTo(dest);
                 }
             }
             catch(IOException ex) {
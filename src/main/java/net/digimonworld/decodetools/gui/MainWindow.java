@@ -39,12 +39,15 @@ import net.digimonworld.decodetools.arcv.ARCVFile;
 import net.digimonworld.decodetools.arcv.VCRAFile;
 import net.digimonworld.decodetools.core.Access;
 import net.digimonworld.decodetools.core.FileAccess;
+import net.digimonworld.decodetools.core.StreamAccess;
 import net.digimonworld.decodetools.core.Utils;
 import net.digimonworld.decodetools.gui.util.FunctionAction;
 import net.digimonworld.decodetools.gui.util.JProgressFrame;
 import net.digimonworld.decodetools.res.DummyResData;
+import net.digimonworld.decodetools.res.PayloadCache;
 import net.digimonworld.decodetools.res.ResPayload;
 import net.digimonworld.decodetools.res.ResPayload.Payload;
+import net.digimonworld.decodetools.res.kcap.AbstractKCAP.KCAPType;
 import net.digimonworld.decodetools.res.kcap.HSMPKCAP;
 import net.digimonworld.decodetools.res.payload.BTXPayload;
 
@@ -64,6 +67,7 @@ public class MainWindow extends JFrame implements Observer {
     private JMenu mnArcv = new JMenu("ARCV");
     private JMenuItem mntmRebuildArcv = new JMenuItem("Rebuild ARCV");
     private JMenuItem mntmRebuildUncompressedArcv = new JMenuItem("Rebuild Uncompressed ARCV");
+    private JMenuItem mntmUpdateArcv = new JMenuItem("Update ARCV");
     private JMenu mnTools = new JMenu("Tools");
     private JMenuItem mntmReexportMipmaps = new JMenuItem("Re-Export Malformatted Files");
     private JTabbedPane tabbedPane = new JTabbedPane(SwingConstants.TOP);
@@ -115,12 +119,15 @@ public class MainWindow extends JFrame implements Observer {
 
         menuBar.add(mnArcv);
 
-        mntmRebuildArcv.setAction(new RebuildAction("Rebuild ARCV", true));
+        mntmRebuildArcv.setAction(new RebuildAction("Rebuild ARCV", true, false));
         mnArcv.add(mntmRebuildArcv);
 
-        mntmRebuildUncompressedArcv.setAction(new RebuildAction("Rebuild Uncompressed ARCV", false));
+        mntmRebuildUncompressedArcv.setAction(new RebuildAction("Rebuild Uncompressed ARCV", false, false));
         mnArcv.add(mntmRebuildUncompressedArcv);
 
+        mntmUpdateArcv.setAction(new RebuildAction("Update ARCV", true, true));
+        mnArcv.add(mntmUpdateArcv);
+
         mntmUnpackARCV.setAction(new ExtractAction());
         mnArcv.add(mntmUnpackARCV);
 
@@ -232,10 +239,12 @@ public class MainWindow extends JFrame implements Observer {
     class RebuildAction extends AbstractAction {
         private static final long serialVersionUID = -5886136864566743305L;
         boolean compressed;
+        boolean incremental;
 
-        public RebuildAction(String name, boolean compressed) {
+        public RebuildAction(String name, boolean compressed, boolean incremental) {
             super(name);
             this.compressed = compressed;
+            this.incremental = incremental;
         }
 
         @Override
@@ -264,7 +273,7 @@ public class MainWindow extends JFrame implements Observer {
                 protected Void doInBackground() throws Exception {
                     try {
                         new ARCVFile(inputFileDialogue.getSelectedFile(),
-                                     compressed).saveFiles(outputFileDialogue.getSelectedFile());
+                                     compressed).saveFiles(outputFileDialogue.getSelectedFile(), incremental);
                         // TODO add progressbar
                     }
                     catch (IOException e1) {
@@ -312,14 +321,20 @@ public class MainWindow extends JFrame implements Observer {
 
             // TODO add work queue, to make sure only one task is executed at a time
             MainWindow.this.setEnabled(false);
+            JProgressFrame progressFrame = new JProgressFrame("Extracting in progress");
+            progressFrame.setVisible(true);
+
             SwingWorker<Void, Object> worker = new SwingWorker<Void, Object>() {
                 @Override
                 protected Void doInBackground() throws Exception {
                     File input = inputFileDialogue.getSelectedFile();
                     File output = outputFileDialogue.getSelectedFile();
 
-                    try (Access access = new FileAccess(new File(input, "ARCVINFO.BIN"))) {
-                        new VCRAFile(access).extractARCV(new File(input, "ARCV0.BIN").toPath(), output.toPath());
+                    try (Access access = new FileAccess(new File(input, "ARCVINFO.BIN"), true)) {
+                        new VCRAFile(access).extractARCV(new File(input, "ARCV0.BIN").toPath(), output.toPath(), null, (done, total) -> {
+                            setProgress((done * 100) / total);
+                            firePropertyChange(JProgressFrame.MESSAGE_PROPERTY, "", done + " of " + total);
+                        });
                     }
                     catch (IOException e1) {
                         Main.LOGGER.log(Level.WARNING, "Error while extracting ARCV files!", e1);
@@ -330,9 +345,12 @@ public class MainWindow extends JFrame implements Observer {
                 @Override
                 protected void done() {
                     MainWindow.this.setEnabled(true);
+                    progressFrame.dispose();
                 }
 
             };
+
+            worker.addPropertyChangeListener(progressFrame.getProgressListener());
             worker.execute();
         }
     }
@@ -383,11 +401,10 @@ public class MainWindow extends JFrame implements Observer {
                        
                     
                         files.filter(Files::isRegularFile).forEach(file -> {
-                            try (Access access = new FileAccess(file.toFile())) {
+                            try (Access access = new StreamAccess(Files.readAllBytes(file))) {
                                 ResPayload resource = ResPayload.craft(access);
                                 // Navigate to find HSMPKCAP
-                                resource.getElementsWithType(Payload.KCAP).stream()
-                                        .filter(kcap -> kcap instanceof HSMPKCAP)
+                                resource.getKCAPsWithType(KCAPType.HSMP).stream()
                                         .map(kcap -> (HSMPKCAP) kcap)
                                         .forEach(hsmp -> {
                                             try {
@@ -416,6 +433,7 @@ public class MainWindow extends JFrame implements Observer {
 
                 @Override
                 protected void done() {
+                    Main.LOGGER.info(() -> "Texture cache: " + PayloadCache.TEXTURES);
                     MainWindow.this.setEnabled(true);
                     progressFrame.dispose();
                     JOptionPane.showMessageDialog(MainWindow.this, "Batch Export Completed!");
@@ -487,7 +505,8 @@ public class MainWindow extends JFrame implements Observer {
 
                             byte[] input = Files.readAllBytes(f.toPath());
 
-                            Access access = new FileAccess(f, true);
+                            // the output might be the input folder, so the file must not stay mapped
+                            Access access = new StreamAccess(input);
                             ResPayload res = ResPayload.craft(access);
                             access.close();
 
@@ -269,13 +269,14 @@ public class DecodeScript {
         // int - number of unknown
         */
         
-        byte[] code = access.readByteArray(codeSize);
-        byte[] string = access.readByteArray(stringSize);
-        byte[] rest = access.readByteArray(totalSize - codeSize - stringSize - 0x18);
+        int restSize = totalSize - codeSize - stringSize - 0x18;
+        long stringStart = access.getPosition() + codeSize;
         
-        StreamAccess codeAccess = new StreamAccess(code);
-        StreamAccess stringAccess = new StreamAccess(string);
-        StreamAccess restAccess = new StreamAccess(rest);
+        // the code gets relocated below, so it needs its own copy
+        StreamAccess codeAccess = new StreamAccess(access.readByteArray(codeSize));
+        Access stringAccess = access.slice(stringStart, stringSize);
+        Access restAccess = access.slice(stringStart + stringSize, restSize);
+        access.setPosition(stringStart + stringSize + restSize);
         
         Map<Integer, String> labelMap = new HashMap<>();
         
@@ -1,13 +1,11 @@
 package net.digimonworld.decodetools.res;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Optional;
 
 import net.digimonworld.decodetools.core.Utils;
 
 public class DummyResData implements IResData {
-    private final List<ResDataEntry> list = new ArrayList<>();
+    private final ResDataIndex index = new ResDataIndex();
     private final Optional<DummyResData> parent;
     
     private int count = 0;
@@ -22,10 +20,10 @@ public class DummyResData implements IResData {
     }
     
     public int add(byte[] data, int size, boolean onlyOnce) {
-        Optional<ResDataEntry> entry = list.stream().filter(a -> onlyOnce && a.isEqual(data)).findFirst();
+        int existing = onlyOnce ? index.find(data) : -1;
         
-        if (entry.isPresent())
-            return entry.get().getAddress();
+        if (existing != -1)
+            return existing;
         
         byte[] padding = new byte[Utils.align(getSize(), 0x80) - getSize()];
         currentSize += padding.length;
@@ -34,7 +32,7 @@ public class DummyResData implements IResData {
         count++;
         
         if (onlyOnce)
-            list.add(new ResDataEntry(data, address));
+            index.add(data, address);
         
         currentSize += size;
         
@@ -52,6 +50,8 @@ public class DummyResData implements IResData {
             this.currentSize += data.getSize();
             this.count += data.getDataEntries();
         }
+        
+        index.addStatistics(data.index);
     }
 
     private int getOffset() {
@@ -63,6 +63,16 @@ public class DummyResData implements IResData {
         return count;
     }
     
+    @Override
+    public int getDedupeHits() {
+        return index.getHits();
+    }
+    
+    @Override
+    public long getDedupeSavedBytes() {
+        return index.getSavedBytes();
+    }
+    
     @Override
     public int getSize() {
         return currentSize;
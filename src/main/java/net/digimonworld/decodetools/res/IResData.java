@@ -1,6 +1,12 @@
 package net.digimonworld.decodetools.res;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 public interface IResData {
     
@@ -12,6 +18,21 @@ public interface IResData {
 
     public int getCurrentAddress();
     
+    /**
+     * Gets the number of added data blocks that were already present and thus not added again, including those of
+     * merged child instances.
+     * 
+     * @return the number of deduplicated data blocks
+     */
+    public int getDedupeHits();
+    
+    /**
+     * Gets the number of bytes saved by deduplication, including those of merged child instances.
+     * 
+     * @return the number of deduplicated bytes
+     */
+    public long getDedupeSavedBytes();
+    
     public class ResDataEntry {
         private final int address;
         private final byte[] data;
@@ -29,4 +50,72 @@ public interface IResData {
             return Arrays.equals(data, data2);
         }
     }
+    
+    /**
+     * An index of the data blocks added to an {@link IResData}, to find duplicates by a 64-bit content hash instead of
+     * comparing them with every earlier block. Blocks with the same hash are still compared, so collisions are
+     * harmless.
+     */
+    public class ResDataIndex {
+        private final Map<Long, List<ResDataEntry>> entries = new HashMap<>();
+        
+        private int hits = 0;
+        private long savedBytes = 0;
+        
+        /**
+         * Finds the address of an earlier block with the same content.
+         * 
+         * @param data the content to look for
+         * @return the address of the earlier block or -1 if there is none
+         */
+        public int find(byte[] data) {
+            for (ResDataEntry entry : entries.getOrDefault(hash(data), List.of())) {
+                if (entry.isEqual(data)) {
+                    hits++;
+                    savedBytes += data.length;
+                    return entry.getAddress();
+                }
+            }
+            
+            return -1;
+        }
+        
+        public void add(byte[] data, int address) {
+            entries.computeIfAbsent(hash(data), a -> new ArrayList<>(1)).add(new ResDataEntry(data, address));
+        }
+        
+        /**
+         * Adds the statistics of the given index to this one, used when merging nested instances.
+         * 
+         * @param other the index to take the statistics from
+         */
+        public void addStatistics(ResDataIndex other) {
+            hits += other.hits;
+            savedBytes += other.savedBytes;
+        }
+        
+        public int getHits() {
+            return hits;
+        }
+        
+        public long getSavedBytes() {
+            return savedBytes;
+        }
+        
+        /**
+         * Calculates a 64-bit FNV-1a style hash of the given data, processing eight bytes at once.
+         */
+        static long hash(byte[] data) {
+            ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+            long hash = 0xCBF29CE484222325L ^ data.length;
+            
+            while (buffer.remaining() >= 8)
+                hash = (hash ^ buffer.getLong()) * 0x100000001B3L;
+            while (buffer.hasRemaining())
+                hash = (hash ^ buffer.get()) * 0x100000001B3L;
+            
+            // fold the high bits down, the multiplication only propagates upwards
+            return hash ^ (hash >>> 29);
+        }
+    }
 }
@@ -0,0 +1,156 @@
+package net.digimonworld.decodetools.res;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+import net.digimonworld.decodetools.res.IResData.ResDataIndex;
+
+/**
+ * A process-wide cache of decoded payload data, keyed by the content of the raw data it was decoded from. Identical
+ * data that is shared between files, like common textures, only gets decoded once.
+ * <p>
+ * The cache is bounded by the combined weight of its entries, evicting the least recently used ones first. Cached
+ * values are shared between all users and must not be modified.
+ * </p>
+ *
+ * @param <T> the type of the decoded values
+ */
+public class PayloadCache<T> {
+    /**
+     * Decoded texture pixels in ARGB, copied into the images of
+     * {@link net.digimonworld.decodetools.res.payload.GMIOPayload}. The variant is the pixel format and resolution of
+     * the texture.
+     */
+    public static final PayloadCache<int[]> TEXTURES = new PayloadCache<>(64L * 1024 * 1024, a -> a.length * 4L);
+    
+    private final Map<Key, T> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final long maximumWeight;
+    private final ToLongFunction<T> weigher;
+    
+    private long weight = 0;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+    
+    /**
+     * @param maximumWeight the maximum combined weight of all entries, measured in bytes
+     * @param weigher calculates the memory size of a value, measured in bytes
+     */
+    public PayloadCache(long maximumWeight, ToLongFunction<T> weigher) {
+        this.maximumWeight = maximumWeight;
+        this.weigher = weigher;
+    }
+    
+    /**
+     * Gets the value decoded from the given raw data, decoding and caching it if it isn't cached yet. Values that are
+     * heavier than the whole cache are returned without being cached.
+     *
+     * @param data the raw data, must not be modified afterwards
+     * @param variant everything besides the raw data the decoded value depends on, compared by equality
+     * @param loader decodes the raw data, might get called concurrently for the same data
+     * @return the decoded value, must not be modified
+     */
+    public T get(byte[] data, Object variant, Function<byte[], T> loader) {
+        Key key = new Key(data, variant);
+        
+        synchronized (this) {
+            T value = entries.get(key);
+            if (value != null) {
+                hits++;
+                return value;
+            }
+            misses++;
+        }
+        
+        // decode outside of the lock, so other lookups aren't blocked by it
+        T value = loader.apply(data);
+        long entryWeight = weigher.applyAsLong(value) + data.length;
+        
+        if (entryWeight > maximumWeight)
+            return value;
+        
+        synchronized (this) {
+            T previous = entries.putIfAbsent(key, value);
+            if (previous != null)
+                return previous;
+            
+            weight += entryWeight;
+            Iterator<Map.Entry<Key, T>> itr = entries.entrySet().iterator();
+            while (weight > maximumWeight) {
+                Map.Entry<Key, T> eldest = itr.next();
+                weight -= weigher.applyAsLong(eldest.getValue()) + eldest.getKey().data.length;
+                itr.remove();
+                evictions++;
+            }
+        }
+        
+        return value;
+    }
+    
+    /**
+     * Removes all entries, keeping the statistics.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        weight = 0;
+    }
+    
+    public synchronized long getHits() {
+        return hits;
+    }
+    
+    public synchronized long getMisses() {
+        return misses;
+    }
+    
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+    
+    /**
+     * Gets the combined weight of all entries, measured in bytes.
+     *
+     * @return the weight of the cache
+     */
+    public synchronized long getWeight() {
+        return weight;
+    }
+    
+    @Override
+    public synchronized String toString() {
+        return String.format("%d entries, %d bytes | Hits: %d | Misses: %d | Evictions: %d", entries.size(), weight, hits, misses, evictions);
+    }
+    
+    private static class Key {
+        private final byte[] data;
+        private final Object variant;
+        private final long hash;
+        
+        public Key(byte[] data, Object variant) {
+            this.data = data;
+            this.variant = variant;
+            this.hash = ResDataIndex.hash(data) * 31 + Objects.hashCode(variant);
+        }
+        
+        @Override
+        public int hashCode() {
+            return Long.hashCode(hash);
+        }
+        
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof Key))
+                return false;
+            
+            Key other = (Key) obj;
+            return hash == other.hash && Objects.equals(variant, other.variant) && Arrays.equals(data, other.data);
+        }
+    }
+}
@@ -1,17 +1,16 @@
 package net.digimonworld.decodetools.res;
 
-import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
-import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.ByteBuffer;
 import java.util.Optional;
 
+import net.digimonworld.decodetools.core.Access;
+import net.digimonworld.decodetools.core.GrowableBufferAccess;
 import net.digimonworld.decodetools.core.Utils;
 
 public class ResData implements IResData, Closeable {
-    private final ByteArrayOutputStream stream = new ByteArrayOutputStream();
-    private final List<ResDataEntry> list = new ArrayList<>();
+    private final GrowableBufferAccess stream = new GrowableBufferAccess();
+    private final ResDataIndex index = new ResDataIndex();
     private final Optional<ResData> parent;
     
     private int count = 0;
@@ -26,31 +25,32 @@ public class ResData implements IResData, Closeable {
     
     @Override
     public int add(byte[] data, boolean onlyOnce) {
-        Optional<ResDataEntry> entry = list.stream().filter(a -> onlyOnce && a.isEqual(data)).findFirst();
+        int existing = onlyOnce ? index.find(data) : -1;
         
-        if (entry.isPresent()) {
-            return entry.get().getAddress();
-        }
+        if (existing != -1)
+            return existing;
 
-        stream.writeBytes(new byte[Utils.align(getSize(), 0x80) - getSize()]);
+        stream.setPosition(Utils.align(getSize(), 0x80));
         
-        int address = stream.size() + getOffset();
+        int address = getSize() + getOffset();
         count++;
         
         if (onlyOnce)
-            list.add(new ResDataEntry(data, address));
+            index.add(data, address);
         
-        stream.write(data, 0, data.length);
+        stream.writeByteArray(data);
         
         return address;
     }
     
     public void add(ResData data) {
         if(data.getSize() > 0) {
-            stream.writeBytes(new byte[Utils.align(getSize(), 0x80) - getSize()]);
-            stream.writeBytes(data.getStream().toByteArray());
+            stream.setPosition(Utils.align(getSize(), 0x80));
+            data.stream.writeTo(stream);
             this.count += data.getDataEntries();
         }
+        
+        index.addStatistics(data.index);
     }
     
     private int getOffset() {
@@ -59,16 +59,25 @@ public class ResData implements IResData, Closeable {
     
     @Override
     public void close() {
-        try {
-            stream.close();
-        }
-        catch (IOException e) {
-            // nothing to catch, will never happen with ByteArrayOutputStream
-        }
+        stream.close();
+    }
+    
+    /**
+     * Writes the data into the given {@link Access}, starting from its current position.
+     * 
+     * @param dest the Access to write into
+     */
+    public void writeTo(Access dest) {
+        stream.writeTo(dest);
     }
     
-    public ByteArrayOutputStream getStream() {
-        return stream;
+    /**
+     * Gets read only views of the data, without copying it. They are only valid until this ResData is closed.
+     * 
+     * @return the views of the data
+     */
+    public ByteBuffer[] getBuffers() {
+        return stream.getBuffers();
     }
     
     @Override
@@ -76,9 +85,19 @@ public class ResData implements IResData, Closeable {
         return count;
     }
     
+    @Override
+    public int getDedupeHits() {
+        return index.getHits();
+    }
+    
+    @Override
+    public long getDedupeSavedBytes() {
+        return index.getSavedBytes();
+    }
+    
     @Override
     public int getSize() {
-        return stream.size();
+        return (int) stream.getSize();
     }
     
     @Override
@@ -0,0 +1,266 @@
+package net.digimonworld.decodetools.res;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.CRC32;
+
+import net.digimonworld.decodetools.core.Access;
+import net.digimonworld.decodetools.core.GrowableBufferAccess;
+import net.digimonworld.decodetools.core.Utils;
+import net.digimonworld.decodetools.res.kcap.AbstractKCAP;
+import net.digimonworld.decodetools.res.kcap.GMIPKCAP;
+import net.digimonworld.decodetools.res.kcap.NormalKCAP;
+import net.digimonworld.decodetools.res.payload.GMIOPayload;
+
+/**
+ * Creates and applies structural patches of Resource files, which only contain the entries that got changed.
+ * <p>
+ * Normal and GMIP KCAPs get compared entry by entry, matching them by their index, {@link ResPayload.Payload} and name. All
+ * other entries, as well as KCAPs whose entries don't match up, get compared by their written form and are replaced
+ * as a whole. Applying a patch to the original file and repacking the result is identical to repacking the modified
+ * file.
+ * </p>
+ *
+ * <pre>
+ * Patch format, little endian:
+ *   int    magic value "RPAT"
+ *   int    version
+ *   int    size of the original file
+ *   int    CRC32 of the original file
+ *   int    number of replacements
+ *   replacements:
+ *     int    path length
+ *     int[]  entry indices from the root to the replaced entry, empty for the root itself
+ *     int    structure size of the entry
+ *     int    length of the written entry
+ *     byte[] the entry, written like a root entry with its data starting at the next 0x80 aligned address
+ * </pre>
+ */
+public class ResPatch {
+    private static final int MAGIC_VALUE = 0x54415052; // RPAT
+    private static final int VERSION = 1;
+    
+    private static final int CHECKSUM_CHUNK_SIZE = 0x10000;
+    
+    private ResPatch() {
+    }
+    
+    /**
+     * Creates a patch that turns the given original file into the modified entry.
+     *
+     * @param original the {@link Access} to the original file
+     * @param modified the modified root entry
+     * @param dest the {@link Access} to write the patch into, starting from its current position
+     * @return the number of replaced entries
+     */
+    public static int createPatch(Access original, ResPayload modified, Access dest) {
+        original.setPosition(0);
+        ResPayload base = ResPayload.craft(original);
+        
+        // start with a fresh layout, the tree might have been modified without noticing
+        base.resetLayout();
+        modified.resetLayout();
+        
+        List<Replacement> replacements = new ArrayList<>();
+        diff(base, modified, new ArrayList<>(), replacements);
+        
+        dest.writeInteger(MAGIC_VALUE);
+        dest.writeInteger(VERSION);
+        dest.writeInteger((int) original.getSize());
+        dest.writeInteger(checksum(original));
+        dest.writeInteger(replacements.size());
+        
+        for (Replacement replacement : replacements) {
+            dest.writeInteger(replacement.path.size());
+            replacement.path.forEach(dest::writeInteger);
+            
+            byte[] data = replacement.path.isEmpty() ? writeRoot(replacement.payload) : write(replacement.payload);
+            dest.writeInteger(replacement.payload.getSize());
+            dest.writeInteger(data.length);
+            dest.writeByteArray(data);
+        }
+        
+        return replacements.size();
+    }
+    
+    /**
+     * Applies a patch to the given original file. The replaced entries get crafted one after another straight from the
+     * patch, so only the patched tree is held in memory.
+     *
+     * @param original the {@link Access} to the original file
+     * @param patch the {@link Access} to the patch, starting from its current position
+     * @return the patched root entry
+     * @throws IllegalArgumentException if the patch is invalid or was created for a different file
+     */
+    public static ResPayload applyPatch(Access original, Access patch) {
+        if (patch.readInteger() != MAGIC_VALUE)
+            throw new IllegalArgumentException("Tried to apply a patch, but didn't find a patch header.");
+        
+        int version = patch.readInteger();
+        if (version != VERSION)
+            throw new IllegalArgumentException("Tried to apply a patch and expected version 1, but got " + version);
+        
+        int size = patch.readInteger();
+        int checksum = patch.readInteger();
+        if (size != original.getSize() || checksum != checksum(original))
+            throw new IllegalArgumentException("Tried to apply a patch that was created for a different file.");
+        
+        original.setPosition(0);
+        ResPayload root = ResPayload.craft(original);
+        
+        int count = patch.readInteger();
+        for (int i = 0; i < count; i++) {
+            int[] path = patch.readIntArray(patch.readInteger());
+            int structureSize = patch.readInteger();
+            int length = patch.readInteger();
+            
+            Access data = patch.slice(patch.getPosition(), length);
+            patch.setPosition(patch.getPosition() + length);
+            
+            if (path.length == 0) {
+                root = ResPayload.craft(data);
+                continue;
+            }
+            
+            AbstractKCAP parent = root instanceof AbstractKCAP ? (AbstractKCAP) root : null;
+            for (int j = 0; j < path.length - 1; j++) {
+                ResPayload entry = getEntry(parent, path[j]);
+                parent = entry instanceof AbstractKCAP ? (AbstractKCAP) entry : null;
+            }
+            
+            int index = path[path.length - 1];
+            String name = getName(getEntry(parent, index));
+            int dataStart = Utils.align(structureSize, 0x80);
+            
+            replace(parent, index, ResPayload.craft(data, dataStart, parent, structureSize, name, index));
+        }
+        
+        return root;
+    }
+    
+    private static void diff(ResPayload original, ResPayload modified, List<Integer> path, List<Replacement> replacements) {
+        if (!isComparable(original, modified)) {
+            if (!Arrays.equals(write(original), write(modified)))
+                replacements.add(new Replacement(new ArrayList<>(path), modified));
+            return;
+        }
+        
+        AbstractKCAP originalKCAP = (AbstractKCAP) original;
+        AbstractKCAP modifiedKCAP = (AbstractKCAP) modified;
+        
+        for (int i = 0; i < originalKCAP.getEntryCount(); i++) {
+            path.add(i);
+            diff(originalKCAP.get(i), modifiedKCAP.get(i), path, replacements);
+            path.remove(path.size() - 1);
+        }
+    }
+    
+    /*
+     * Only KCAPs that don't store anything but their entries can be compared entry by entry, and only if their entries
+     * match up with each other.
+     */
+    private static boolean isComparable(ResPayload original, ResPayload modified) {
+        if (original.getClass() != modified.getClass())
+            return false;
+        
+        if (original instanceof NormalKCAP) {
+            NormalKCAP a = (NormalKCAP) original;
+            NormalKCAP b = (NormalKCAP) modified;
+            
+            if (a.getGenericAlignment() != b.getGenericAlignment())
+                return false;
+        }
+        else if (!(original instanceof GMIPKCAP))
+            return false;
+        
+        AbstractKCAP a = (AbstractKCAP) original;
+        AbstractKCAP b = (AbstractKCAP) modified;
+        
+        if (a.getUnknown() != b.getUnknown() || a.getEntryCount() != b.getEntryCount())
+            return false;
+        
+        for (int i = 0; i < a.getEntryCount(); i++)
+            if (a.get(i).getType() != b.get(i).getType() || !Objects.equals(getName(a.get(i)), getName(b.get(i))))
+                return false;
+        
+        return true;
+    }
+    
+    private static String getName(ResPayload payload) {
+        return payload instanceof NameablePayload ? ((NameablePayload) payload).getName() : null;
+    }
+    
+    private static ResPayload getEntry(AbstractKCAP parent, int index) {
+        if (parent == null || index < 0 || index >= parent.getEntryCount())
+            throw new IllegalArgumentException("Tried to apply a patch, but its path doesn't match the file.");
+        
+        return parent.get(index);
+    }
+    
+    private static void replace(AbstractKCAP parent, int index, ResPayload payload) {
+        if (parent instanceof NormalKCAP)
+            ((NormalKCAP) parent).set(index, payload);
+        else if (parent instanceof GMIPKCAP && payload instanceof GMIOPayload)
+            ((GMIPKCAP) parent).set(index, (GMIOPayload) payload);
+        else
+            throw new IllegalArgumentException("Tried to apply a patch, but can't replace a " + payload.getType() + " entry in " + parent);
+    }
+    
+    /*
+     * Writes an entry like a root entry, but with its data always starting at the next 0x80 aligned address, since
+     * that's where it gets crafted from when applying the patch.
+     */
+    private static byte[] write(ResPayload payload) {
+        return write(payload, Utils.align(payload.getSize(), 0x80));
+    }
+    
+    private static byte[] writeRoot(ResPayload payload) {
+        return write(payload, -1);
+    }
+    
+    private static byte[] write(ResPayload payload, int dataStart) {
+        try (GrowableBufferAccess dest = new GrowableBufferAccess(); ResData data = new ResData()) {
+            payload.prepareWrite();
+            payload.writeKCAP(dest, data);
+            
+            if (dataStart != -1)
+                dest.setPosition(dataStart);
+            else if (data.getSize() != 0)
+                dest.setPosition(Utils.align(payload.getSize(), 0x80));
+            
+            data.writeTo(dest);
+            
+            byte[] array = new byte[(int) dest.getSize()];
+            int offset = 0;
+            for (ByteBuffer buffer : dest.getBuffers()) {
+                int length = buffer.remaining();
+                buffer.get(array, offset, length);
+                offset += length;
+            }
+            return array;
+        }
+    }
+    
+    private static int checksum(Access source) {
+        CRC32 crc = new CRC32();
+        long size = source.getSize();
+        
+        for (long address = 0; address < size; address += CHECKSUM_CHUNK_SIZE)
+            crc.update(source.readByteArray((int) Math.min(CHECKSUM_CHUNK_SIZE, size - address), address));
+        
+        return (int) crc.getValue();
+    }
+    
+    private static class Replacement {
+        private final List<Integer> path;
+        private final ResPayload payload;
+        
+        public Replacement(List<Integer> path, ResPayload payload) {
+            this.path = path;
+            this.payload = payload;
+        }
+    }
+}
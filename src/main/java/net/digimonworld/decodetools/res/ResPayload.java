@@ -2,17 +2,25 @@ package net.digimonworld.decodetools.res;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.function.Function;
 import java.util.logging.Level;
+import java.util.stream.Stream;
 
 import net.digimonworld.decodetools.Main;
 import net.digimonworld.decodetools.core.Access;
-import net.digimonworld.decodetools.core.FileAccess;
+import net.digimonworld.decodetools.core.GrowableBufferAccess;
+import net.digimonworld.decodetools.core.MagicValueMap;
 import net.digimonworld.decodetools.core.Utils;
 import net.digimonworld.decodetools.res.kcap.AbstractKCAP;
+import net.digimonworld.decodetools.res.kcap.AbstractKCAP.KCAPType;
 import net.digimonworld.decodetools.res.payload.BTXPayload;
 import net.digimonworld.decodetools.res.payload.CTPPPayload;
 import net.digimonworld.decodetools.res.payload.GMIOPayload;
@@ -39,6 +47,9 @@ import net.digimonworld.decodetools.res.payload.XTVOPayload;
  * The abstract superclass for all different entry types inside a Re:Digitize/Decode Resource file.
  */
 public abstract class ResPayload {
+    // dedicated pool, so KCAPs can tell whether they're supposed to craft their children concurrently
+    private static final ForkJoinPool CRAFT_POOL = new ForkJoinPool();
+    
     private AbstractKCAP parent = null;
     
     protected ResPayload(AbstractKCAP parent) {
@@ -75,11 +86,50 @@ public abstract class ResPayload {
     
     /**
      * Gets the entry's size when written in a Resource file, excluding ResData but including all potential children.
+     * <p>
+     * KCAPs memoize their size, so it only gets computed once per layout pass. See {@link #resetLayout()}.
+     * </p>
      * 
      * @return the entry's size
      */
     public abstract int getSize();
     
+    /**
+     * Discards the memoized layout of this entry and all of its children, so it gets computed again on the next
+     * access. Has to be called after modifying an entry in a way the entry itself can't notice, e.g. through one of
+     * its mutable child objects.
+     */
+    public void resetLayout() {
+    }
+    
+    /**
+     * Discards the memoized layout of this entry and all of its parents, since their sizes depend on it. Has to be
+     * called by every operation that changes the size of the entry.
+     */
+    public void invalidateLayout() {
+        if (parent != null)
+            parent.invalidateLayout();
+    }
+    
+    /**
+     * Discards the type index of this entry and all of its parents, since it covers their whole subtree. Has to be
+     * called by every operation that adds, removes, replaces or reorders the entries of a KCAP. See
+     * {@link #getElementsWithType(Payload)}.
+     */
+    public void invalidateIndex() {
+        if (parent != null)
+            parent.invalidateIndex();
+    }
+    
+    /**
+     * Discards the raw data this entry and all of its children retained from the file they were read from, so they get
+     * encoded from their object form on the next write. Has to be called after modifying an entry in a way the entry
+     * itself can't notice, e.g. through one of its mutable child objects. Unmodified entries are written back
+     * verbatim.
+     */
+    public void markModified() {
+    }
+    
     /**
      * Gets the type of the Payload.
      * 
@@ -108,6 +158,11 @@ public abstract class ResPayload {
     
     /**
      * Creates a new ResPayload by reading the next structure from the passed {@link Access}.
+     * <p>
+     * Textures, vertex buffers, index buffers and text tables are crafted lazily. They only copy their raw bytes and
+     * decode them on first access. Textures, vertex buffers and index buffers keep their raw bytes until they get
+     * modified, so unmodified ones are written back verbatim. See {@link #markModified()}.
+     * </p>
      * 
      * @param source the {@link Access} to read from
      * @param dataStart a pointer to the start of the data section of the file this entry exists in
@@ -123,6 +178,29 @@ public abstract class ResPayload {
         return Payload.valueOf(parent, source.readLongOffset(0)).newInstance(source, dataStart, parent, size, name);
     }
     
+    /**
+     * Creates a new ResPayload by reading the next structure from the passed {@link Access}, for an entry that is
+     * going to be at the given index of its parent. See {@link #craft(Access, int, AbstractKCAP, int, String)}.
+     * <p>
+     * BTX use their index as file id, which the parent can't tell from its entries while they're still being crafted
+     * or replaced.
+     * </p>
+     * 
+     * @param source the {@link Access} to read from
+     * @param dataStart a pointer to the start of the data section of the file this entry exists in
+     * @param parent the parent KCAP of this entry
+     * @param size the size of the entry as defined by the parent KCAP
+     * @param name the name of the entry as defined by the parent KCAP or null if there is none
+     * @param index the index of the entry within its parent
+     * @return the newly created ResPayload
+     */
+    public static ResPayload craft(Access source, int dataStart, AbstractKCAP parent, int size, String name, int index) {
+        if (size != 0 && Payload.valueOf(parent, source.readLongOffset(0)) == Payload.BTX)
+            return new BTXPayload(source, dataStart, parent, size, name, index);
+        
+        return craft(source, dataStart, parent, size, name);
+    }
+    
     /**
      * Creates a new ResPayload by reading the next structure from the passed {@link Access}.
      * 
@@ -134,6 +212,41 @@ public abstract class ResPayload {
         return ResPayload.craft(source, dataStart, (AbstractKCAP) null, -1, null);
     }
     
+    /**
+     * Creates a new ResPayload by reading the next structure from the passed {@link Access}, crafting the children of
+     * KCAPs concurrently.
+     * <p>
+     * Every child gets crafted from its own view of the source, so the passed {@link Access} must support concurrent
+     * reads through {@link Access#slice(long, long)}, like {@link net.digimonworld.decodetools.core.MappedFileAccess}
+     * and {@link net.digimonworld.decodetools.core.StreamAccess} do. The result is identical to {@link #craft(Access)}.
+     * </p>
+     * 
+     * @param source the {@link Access} to read from
+     * @return the newly created ResPayload
+     */
+    public static ResPayload craftParallel(Access source) {
+        return CRAFT_POOL.invoke(ForkJoinTask.adapt(() -> craft(source)));
+    }
+    
+    /**
+     * Checks whether the calling thread is crafting as part of {@link #craftParallel(Access)}.
+     * 
+     * @return true if children may get crafted concurrently, false otherwise
+     */
+    protected static boolean isCraftingInParallel() {
+        return ForkJoinTask.getPool() == CRAFT_POOL;
+    }
+    
+    /**
+     * Encodes the data of modified entries ahead of a write, so that {@link #writeKCAP(Access, ResData)} only has to
+     * merge it into the {@link ResData}. The encoded data is only kept until the next write.
+     * <p>
+     * Entries only touch their own state, which allows KCAPs to prepare their entries concurrently.
+     * </p>
+     */
+    public void prepareWrite() {
+    }
+    
     /**
      * Writes the entry's resource data to a {@link DummyResData} instance for size calculation purposes.
      * Since it's not an actual write this allows to only perform what is necessary for the calculations, 
@@ -145,18 +258,41 @@ public abstract class ResPayload {
     }
     
     /**
-     * Gets a list of all entries with a certain {@link Payload} in this entry, including itself.
+     * Gets an immutable list of all entries with a certain {@link Payload} in this entry, including itself, in tree
+     * order.
+     * <p>
+     * KCAPs look them up in an index of their subtree, which is built on the first lookup and kept until their entries
+     * change. See {@link #invalidateIndex()}.
+     * </p>
      * 
      * @param type the Payload type to look for
      * @return a list of ResPayloads with that type
      */
     public List<ResPayload> getElementsWithType(Payload type) {
-        List<ResPayload> list = new ArrayList<>();
-        
-        if (getType() == type)
-            list.add(this);
-        
-        return list;
+        return getType() == type ? List.of(this) : List.of();
+    }
+    
+    /**
+     * Gets a stream of all entries with a certain {@link Payload} in this entry, including itself, in tree order.
+     * 
+     * @param type the Payload type to look for
+     * @return a stream of ResPayloads with that type
+     * @see #getElementsWithType(Payload)
+     */
+    public Stream<ResPayload> streamElementsWithType(Payload type) {
+        return getElementsWithType(type).stream();
+    }
+    
+    /**
+     * Gets an immutable list of all KCAPs with a certain {@link KCAPType} in this entry, including itself, in tree
+     * order.
+     * 
+     * @param type the KCAPType to look for
+     * @return a list of KCAPs with that type
+     * @see #getElementsWithType(Payload)
+     */
+    public List<AbstractKCAP> getKCAPsWithType(KCAPType type) {
+        return List.of();
     }
     
     public void repack(File file) {
@@ -170,13 +306,25 @@ public abstract class ResPayload {
                 Main.LOGGER.log(Level.WARNING, "Exception while writing new .res file.", e1);
             }
         
-        try (Access dest = new FileAccess(file); ResData data = new ResData()) {
+        try (GrowableBufferAccess dest = new GrowableBufferAccess(); ResData data = new ResData();
+             FileChannel chan = FileChannel.open(file.toPath(), StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            // start with a fresh layout, the tree might have been modified without noticing
+            resetLayout();
+            prepareWrite();
             writeKCAP(dest, data);
+            Main.LOGGER.fine(() -> String.format("Deduplicated %d data entries of %s, saving %d bytes.", data.getDedupeHits(), file,
+                                                 data.getDedupeSavedBytes()));
             
-            if(data.getSize() != 0) {
+            if(data.getSize() != 0)
                 dest.setPosition(Utils.align(getSizeOfRoot(), 0x80));
-                dest.writeByteArray(data.getStream().toByteArray());
-            }
+            
+            // the whole file is built in memory, write structure and data at once
+            ByteBuffer[] structure = dest.getBuffers();
+            ByteBuffer[] resData = data.getBuffers();
+            ByteBuffer[] buffers = Arrays.copyOf(structure, structure.length + resData.length);
+            System.arraycopy(resData, 0, buffers, structure.length, resData.length);
+            
+            GrowableBufferAccess.writeTo(chan, buffers);
         }
         catch (IOException e) {
             Main.LOGGER.log(Level.WARNING, "Exception while writing new .res file.", e);
@@ -225,6 +373,8 @@ public abstract class ResPayload {
         TREP(0, TREPPayload::new),
         TNOJ(0, TNOJPayload::new);
         
+        private static final MagicValueMap<Payload> MAGIC_VALUES = new MagicValueMap<>(values(), Payload::getMagicValue);
+        
         private final int magicValue;
         private Function<Access, Integer> sizeMethod;
         private ResPayloadInitializer initializer;
@@ -276,13 +426,9 @@ public abstract class ResPayload {
             int right = (int) (value & 0xFFFFFFFF);
             
             //check if the first 4 bytes match a magic value
-            for (Payload extension : values()) {
-                if (extension.magicValue == 0)
-                    continue;
-                
-                if (extension.magicValue == right)
-                    return extension;
-            }
+            Payload extension = MAGIC_VALUES.get(right, null);
+            if (extension != null)
+                return extension;
             
             //BTX with meta entries have their magic value at 0x4 instead of 0x0
             if (left == BTX.getMagicValue())
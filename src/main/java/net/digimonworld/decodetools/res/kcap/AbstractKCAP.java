@@ -1,16 +1,21 @@
 package net.digimonworld.decodetools.res.kcap;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinTask;
 
 import net.digimonworld.decodetools.core.Access;
+import net.digimonworld.decodetools.core.MagicValueMap;
 import net.digimonworld.decodetools.res.DummyResData;
 import net.digimonworld.decodetools.res.NameablePayload;
 import net.digimonworld.decodetools.res.ResPayload;
+import net.digimonworld.decodetools.res.payload.VoidPayload;
 
 /*
  * TODO reduce code redundancy, especially with in reading/writing/size calculation
@@ -20,7 +25,12 @@ public abstract class AbstractKCAP extends ResPayload implements Iterable<ResPay
     
     protected static final int VERSION = 1;
     
+    // minimum number of entries for a KCAP to craft or prepare them concurrently, the pointer sizes don't include the data section
+    private static final int PARALLEL_THRESHOLD = 4;
+    
     private int unknown;
+    private int layoutSize = -1;
+    private PayloadIndex index = null;
     
     protected AbstractKCAP(AbstractKCAP parent, int unknown) {
         super(parent);
@@ -54,6 +64,50 @@ public abstract class AbstractKCAP extends ResPayload implements Iterable<ResPay
     // TODO JavaDocs
     public abstract KCAPType getKCAPType();
     
+    /**
+     * Computes the size of this KCAP, including all its children. Called at most once per layout pass, the result is
+     * memoized until the layout gets invalidated.
+     * 
+     * @return the size of this KCAP
+     */
+    protected abstract int computeSize();
+    
+    @Override
+    public final int getSize() {
+        int size = layoutSize;
+        
+        if (size == -1) {
+            size = computeSize();
+            layoutSize = size;
+        }
+        
+        return size;
+    }
+    
+    @Override
+    public void resetLayout() {
+        layoutSize = -1;
+        index = null;
+        getEntries().forEach(ResPayload::resetLayout);
+    }
+    
+    @Override
+    public void invalidateLayout() {
+        layoutSize = -1;
+        super.invalidateLayout();
+    }
+    
+    @Override
+    public void invalidateIndex() {
+        index = null;
+        super.invalidateIndex();
+    }
+    
+    @Override
+    public void markModified() {
+        getEntries().forEach(ResPayload::markModified);
+    }
+    
     @Override
     public void fillDummyResData(DummyResData data) {
         DummyResData localData = new DummyResData(data);
@@ -63,11 +117,23 @@ public abstract class AbstractKCAP extends ResPayload implements Iterable<ResPay
     
     @Override
     public List<ResPayload> getElementsWithType(Payload type) {
-        List<ResPayload> list = super.getElementsWithType(type);
+        return getIndex().payloads.getOrDefault(type, Collections.emptyList());
+    }
+    
+    @Override
+    public List<AbstractKCAP> getKCAPsWithType(KCAPType type) {
+        return getIndex().kcaps.getOrDefault(type, Collections.emptyList());
+    }
+    
+    private PayloadIndex getIndex() {
+        PayloadIndex localIndex = index;
         
-        getEntries().forEach(a -> list.addAll(a.getElementsWithType(type)));
+        if (localIndex == null) {
+            localIndex = new PayloadIndex(this);
+            index = localIndex;
+        }
         
-        return list;
+        return localIndex;
     }
     
     @Override
@@ -101,6 +167,8 @@ public abstract class AbstractKCAP extends ResPayload implements Iterable<ResPay
         XTVP(0x50565458),
         NONE(0x00000000);
         
+        private static final MagicValueMap<KCAPType> MAGIC_VALUES = new MagicValueMap<>(values(), KCAPType::getMagicValue);
+        
         private int magicValue;
         
         private KCAPType(int magicValue) {
@@ -108,11 +176,7 @@ public abstract class AbstractKCAP extends ResPayload implements Iterable<ResPay
         }
         
         public static KCAPType valueOf(int val) {
-            for (KCAPType value : values())
-                if (value.magicValue == val)
-                    return value;
-                
-            return NONE;
+            return MAGIC_VALUES.get(val, NONE);
         }
         
         public int getMagicValue() {
@@ -181,6 +245,36 @@ public abstract class AbstractKCAP extends ResPayload implements Iterable<ResPay
         
     }
     
+    /**
+     * An index of all entries in the subtree of a KCAP, including itself, by their {@link Payload} and
+     * {@link KCAPType}. The lists are in tree order and immutable, so they stay valid when the index gets discarded.
+     */
+    private static class PayloadIndex {
+        private final Map<Payload, List<ResPayload>> payloads = new EnumMap<>(Payload.class);
+        private final Map<KCAPType, List<AbstractKCAP>> kcaps = new EnumMap<>(KCAPType.class);
+        
+        PayloadIndex(AbstractKCAP root) {
+            add(root);
+            
+            payloads.replaceAll((k, v) -> Collections.unmodifiableList(v));
+            kcaps.replaceAll((k, v) -> Collections.unmodifiableList(v));
+        }
+        
+        private void add(ResPayload payload) {
+            if (payload.getType() != null) // VOID entries have no type
+                payloads.computeIfAbsent(payload.getType(), a -> new ArrayList<>()).add(payload);
+            
+            if (payload instanceof AbstractKCAP) {
+                AbstractKCAP kcap = (AbstractKCAP) payload;
+                
+                if (kcap.getKCAPType() != null)
+                    kcaps.computeIfAbsent(kcap.getKCAPType(), a -> new ArrayList<>()).add(kcap);
+                
+                kcap.getEntries().forEach(this::add);
+            }
+        }
+    }
+    
     public static class KCAPInformation {
         long startAddress;
         
@@ -254,6 +348,79 @@ public abstract class AbstractKCAP extends ResPayload implements Iterable<ResPay
         return pointer;
     }
     
+    @Override
+    public void prepareWrite() {
+        if (getEntryCount() < PARALLEL_THRESHOLD) {
+            getEntries().forEach(ResPayload::prepareWrite);
+            return;
+        }
+        
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(getEntryCount());
+        for (ResPayload entry : getEntries())
+            tasks.add(ForkJoinTask.adapt(entry::prepareWrite));
+        
+        ForkJoinTask.invokeAll(tasks);
+    }
+    
+    /**
+     * Crafts the entries pointed to by the given pointers in order. Void pointers result in a {@link VoidPayload}.
+     * <p>
+     * When called as part of {@link ResPayload#craftParallel(Access)} the entries get crafted concurrently, each from
+     * its own slice of the source. The source gets positioned at the end of the last entry either way.
+     * </p>
+     * 
+     * @param source the {@link Access} to read from
+     * @param dataStart a pointer to the start of the data section of the file
+     * @param info the information of this KCAP
+     * @param pointer the pointers to the entries
+     * @param names the names of the entries by index
+     * @return the crafted entries
+     */
+    List<ResPayload> craftEntries(Access source, int dataStart, KCAPInformation info, List<KCAPPointer> pointer, Map<Integer, String> names) {
+        List<ResPayload> entries = new ArrayList<>(pointer.size());
+        
+        if (!isCraftingInParallel() || pointer.size() < PARALLEL_THRESHOLD) {
+            for (int i = 0; i < pointer.size(); ++i) {
+                KCAPPointer p = pointer.get(i);
+                
+                if (p.getOffset() == 0 && p.getSize() == 0) // those empty entries exist and have to be preserved
+                    entries.add(new VoidPayload(this));
+                else {
+                    source.setPosition(info.startAddress + p.getOffset());
+                    entries.add(ResPayload.craft(source, dataStart, this, p.getSize(), names.get(i), i));
+                }
+            }
+            return entries;
+        }
+        
+        List<ForkJoinTask<ResPayload>> tasks = new ArrayList<>(pointer.size());
+        Access last = null;
+        for (int i = 0; i < pointer.size(); ++i) {
+            KCAPPointer p = pointer.get(i);
+            
+            if (p.getOffset() == 0 && p.getSize() == 0) {
+                tasks.add(null);
+                continue;
+            }
+            
+            // absolute addresses stay valid since the view covers the whole source
+            Access view = source.slice(0, source.getSize());
+            view.setPosition(info.startAddress + p.getOffset());
+            String name = names.get(i);
+            int index = i;
+            tasks.add(ForkJoinTask.adapt(() -> ResPayload.craft(view, dataStart, this, p.getSize(), name, index)).fork());
+            last = view;
+        }
+        
+        for (ForkJoinTask<ResPayload> task : tasks)
+            entries.add(task == null ? new VoidPayload(this) : task.join());
+        
+        if (last != null)
+            source.setPosition(last.getPosition());
+        
+        return entries;
+    }
+    
     static Map<Integer, String> loadNames(Access source, KCAPInformation info) {
         // make sure we're actually at the payload start
         long expectedPayloadStart = info.startAddress + info.payloadStart;
@@ -51,17 +51,11 @@ public class GMIPKCAP extends AbstractKCAP {
         // load the names
         Map<Integer, String> names = loadNames(source, info);
         
-        // load the entries
-        for (int i = 0; i < info.entries; ++i) {
-            KCAPPointer p = pointer.get(i);
-            String name = names.getOrDefault(i, null); // give entries a name if they have one
-            
-            if (p.getOffset() == 0 && p.getSize() == 0)
-                throw new IllegalArgumentException("Got a Void pointer, but only GMIO entries are allowed.");
-            
-            source.setPosition(info.startAddress + p.getOffset());
-            ResPayload payload = ResPayload.craft(source, dataStart, this, p.getSize(), name);
-            
+        // load the entries, giving them a name if they have one
+        if (pointer.stream().anyMatch(p -> p.getOffset() == 0 && p.getSize() == 0))
+            throw new IllegalArgumentException("Got a Void pointer, but only GMIO entries are allowed.");
+        
+        for (ResPayload payload : craftEntries(source, dataStart, info, pointer, names)) {
             if (payload.getType() != Payload.GMIO)
                 throw new IllegalArgumentException("Got a " + payload.getType() + " entry, but only GMIO entries are allowed.");
             
@@ -81,14 +75,27 @@ public class GMIPKCAP extends AbstractKCAP {
     public void add(GMIOPayload gmio) {
         gmio.setParent(this);
         entries.add(gmio);
+        invalidateLayout();
+        invalidateIndex();
+    }
+    
+    public void set(int index, GMIOPayload gmio) {
+        gmio.setParent(this);
+        entries.set(index, gmio);
+        invalidateLayout();
+        invalidateIndex();
     }
     
     public void remove(int index) {
         entries.remove(index);
+        invalidateLayout();
+        invalidateIndex();
     }
     
     public void swap(int id1, int id2) {
         Collections.swap(entries, id1, id2);
+        invalidateLayout();
+        invalidateIndex();
     }
     
     @Override
@@ -112,7 +119,7 @@ public class GMIPKCAP extends AbstractKCAP {
     }
     
     @Override
-    public int getSize() {
+    protected int computeSize() {
         int size = 0x30; // side of header
         size += getEntryCount() * 0x08; // size of pointer map
         
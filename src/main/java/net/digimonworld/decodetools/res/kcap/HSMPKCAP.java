@@ -208,7 +208,7 @@ public class HSMPKCAP extends AbstractKCAP {
     }
     
     @Override
-    public int getSize() {
+    protected int computeSize() {
         int size = 0x4C;
         size += name.length() + 2;
         size = Utils.align(size, 0x10);
@@ -290,18 +290,26 @@ public class HSMPKCAP extends AbstractKCAP {
     
     public void setXDIP(XDIPKCAP xdip) {
         this.xdip = xdip;
+        invalidateLayout();
+        invalidateIndex();
     }
     
     public void setXTVP(XTVPKCAP xtvp) {
         this.xtvp = xtvp;
+        invalidateLayout();
+        invalidateIndex();
     }
     
     public void setHSEM(HSEMKCAP hsem) {
         this.hsem = hsem;
+        invalidateLayout();
+        invalidateIndex();
     }
 
     public void setTNOJ(TNOJKCAP tnoj) {
         this.tnoj = tnoj;
+        invalidateLayout();
+        invalidateIndex();
     }
     
     public TNOJKCAP getTNOJ() {
@@ -3,13 +3,13 @@ package net.digimonworld.decodetools.res.kcap;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import net.digimonworld.decodetools.Main;
 import net.digimonworld.decodetools.core.Access;
 import net.digimonworld.decodetools.core.Utils;
 import net.digimonworld.decodetools.res.ResData;
 import net.digimonworld.decodetools.res.ResPayload;
-import net.digimonworld.decodetools.res.payload.VoidPayload;
 
 public class NormalKCAP extends AbstractKCAP {
     
@@ -30,14 +30,7 @@ public class NormalKCAP extends AbstractKCAP {
         source.readByteArray((int) diff); // padding
         
         // load the content
-        for (KCAPPointer p : pointer) {
-            if (p.getOffset() == 0 && p.getSize() == 0) // those empty entries exist and have to be preserved
-                entries.add(new VoidPayload(this));
-            else {
-                source.setPosition(info.startAddress + p.getOffset());
-                entries.add(ResPayload.craft(source, dataStart, this, p.getSize(), null));
-            }
-        }
+        entries.addAll(craftEntries(source, dataStart, info, pointer, Map.of()));
         
         // make sure we're at the end of the KCAP
         long expectedEnd = info.startAddress + info.size;
@@ -62,6 +55,13 @@ public class NormalKCAP extends AbstractKCAP {
         return entries;
     }
     
+    public void set(int index, ResPayload entry) {
+        entry.setParent(this);
+        entries.set(index, entry);
+        invalidateLayout();
+        invalidateIndex();
+    }
+    
     @Override
     public ResPayload get(int i) {
         return entries.get(i);
@@ -78,7 +78,7 @@ public class NormalKCAP extends AbstractKCAP {
     }
     
     @Override
-    public int getSize() {
+    protected int computeSize() {
         int size = 0x20; // size of header
         size += getEntryCount() * 0x08; // size of pointer map
         
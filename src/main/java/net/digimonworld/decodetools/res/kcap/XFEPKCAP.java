@@ -168,7 +168,7 @@ public class XFEPKCAP extends AbstractKCAP {
     }
     
     @Override
-    public int getSize() {
+    protected int computeSize() {
         int size = 0x40 + unknownData2.length * 4;
         size += name.length() + 2;
         size = Utils.align(size, 0x10);
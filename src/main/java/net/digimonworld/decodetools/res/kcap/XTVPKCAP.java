@@ -3,6 +3,7 @@ package net.digimonworld.decodetools.res.kcap;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import net.digimonworld.decodetools.Main;
 import net.digimonworld.decodetools.core.Access;
@@ -38,13 +39,10 @@ public class XTVPKCAP extends AbstractKCAP {
         
         List<KCAPPointer> pointer = loadKCAPPointer(source, info.entries);
         
-        for (KCAPPointer p : pointer) {
-            if (p.getOffset() == 0 && p.getSize() == 0)
-                throw new IllegalArgumentException("Got a Void pointer, but only XTVO entries are allowed.");
-            
-            source.setPosition(info.startAddress + p.getOffset());
-            ResPayload payload = ResPayload.craft(source, dataStart, this, p.getSize(), null);
-            
+        if (pointer.stream().anyMatch(p -> p.getOffset() == 0 && p.getSize() == 0))
+            throw new IllegalArgumentException("Got a Void pointer, but only XTVO entries are allowed.");
+        
+        for (ResPayload payload : craftEntries(source, dataStart, info, pointer, Map.of())) {
             if (payload.getType() != Payload.XTVO)
                 throw new IllegalArgumentException("Got a " + payload.getType() + " entry, but only XTVO entries are allowed.");
             
@@ -82,7 +80,7 @@ public class XTVPKCAP extends AbstractKCAP {
     }
     
     @Override
-    public int getSize() {
+    protected int computeSize() {
         int size = 0x30;
         size += getEntryCount() * 0x08;
         
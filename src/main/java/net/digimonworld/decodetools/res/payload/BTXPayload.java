@@ -1,5 +1,6 @@
 package net.digimonworld.decodetools.res.payload;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
@@ -7,6 +8,7 @@ import java.util.Optional;
 
 import net.digimonworld.decodetools.Main;
 import net.digimonworld.decodetools.core.Access;
+import net.digimonworld.decodetools.core.StreamAccess;
 import net.digimonworld.decodetools.core.Tuple;
 import net.digimonworld.decodetools.core.Utils;
 import net.digimonworld.decodetools.res.ResData;
@@ -20,18 +22,44 @@ public class BTXPayload extends ResPayload {
     private final int fileId;
 
     private List<Tuple<Integer, BTXEntry>> entries = new LinkedList<>();
+    
+    // the raw data as read from the file, only gets parsed into entries on first access
+    private byte[] rawData;
 
-    // TODO make cleaner/nicer
     public BTXPayload(Access source, int dataStart, AbstractKCAP parent, int size, String name) {
+        this(source, dataStart, parent, size, name, parent != null ? parent.getEntryCount() : 0);
+    }
+    
+    /**
+     * Creates a BTXPayload from the given {@link Access} for an entry at the given index of its parent, see
+     * {@link ResPayload#craft(Access, int, AbstractKCAP, int, String, int)}.
+     * 
+     * @param fileId the index of the entry within its parent
+     */
+    public BTXPayload(Access source, int dataStart, AbstractKCAP parent, int size, String name, int fileId) {
+        super(parent);
+        this.fileId = fileId;
+        
+        // root BTX have no reliable size, everything else only gets parsed on first access
+        if (size == -1)
+            entries = readEntries(source);
+        else
+            rawData = source.readByteArray(size);
+    }
+    
+    public BTXPayload(AbstractKCAP parent) {
         super(parent);
         this.fileId = parent != null ? parent.getEntryCount() : 0;
-
+    }
+    
+    // TODO make cleaner/nicer
+    private static List<Tuple<Integer, BTXEntry>> readEntries(Access source) {
         long start = source.getPosition();
         int postStart = 0;
 
         // for BTX that contain a meta have the magic value at the second word of the struct
         int magic = source.readInteger();
-        if (magic != getType().getMagicValue()) {
+        if (magic != Payload.BTX.getMagicValue()) {
             postStart = magic;
             source.readInteger(); // magic value
         }
@@ -46,30 +74,24 @@ public class BTXPayload extends ResPayload {
 
         List<Tuple<Integer, Long>> pointers = new LinkedList<>();
 
-        for (int i = 0; i < numEntries; i++) {
-            long pos = source.getPosition();
-            int id = source.readInteger();
+        long tableStart = source.getPosition();
+        int[] table = source.readIntArray(numEntries * 2);
 
-            pointers.add(new Tuple<>(id, source.readInteger() + pos));
-        }
+        // each entry is an id followed by a pointer relative to the entry itself
+        for (int i = 0; i < numEntries; i++)
+            pointers.add(new Tuple<>(table[i * 2], table[i * 2 + 1] + tableStart + i * 8L));
 
         List<String> strings = new LinkedList<>();
 
         for (Tuple<Integer, Long> entry : pointers) {
-            long pointer = entry.getValue();
-            StringBuilder builder = new StringBuilder();
-            source.setPosition(pointer);
-
-            char val;
-            while ((val = source.readChar()) != 0) {
-                builder.append(val);
-            }
+            source.setPosition(entry.getValue());
+            String string = source.readNullTerminatedString(StandardCharsets.UTF_16LE);
 
             char secondNull = source.readChar();
             if (postStart == 0 && secondNull != 0x0000) // read final 0x0000
                 Main.LOGGER.warning(() -> "Tried reading the second terminator char (0x0000) but got " + secondNull);
 
-            strings.add(builder.toString());
+            strings.add(string);
         }
 
         List<BTXMeta> metas = new LinkedList<>();
@@ -80,19 +102,35 @@ public class BTXPayload extends ResPayload {
                 metas.add(new BTXMeta(source));
         }
 
+        List<Tuple<Integer, BTXEntry>> entries = new LinkedList<>();
         for (int i = 0; i < pointers.size(); i++) {
             entries.add(new Tuple<>(pointers.get(i).getKey(),
                                     new BTXEntry(strings.get(i), metas.size() > i ? metas.get(i) : null)));
         }
-    }
 
-    public BTXPayload(AbstractKCAP parent) {
-        super(parent);
-        this.fileId = parent != null ? parent.getEntryCount() : 0;
+        return entries;
+    }
+    
+    /**
+     * Parses the raw data read from the file into entries, if it hasn't been parsed yet.
+     */
+    private void parseEntries() {
+        if (rawData == null)
+            return;
+        
+        try (StreamAccess access = new StreamAccess(rawData)) {
+            entries = readEntries(access);
+        }
+        
+        rawData = null;
+        invalidateLayout(); // the size is computed from the entries from now on
     }
 
     @Override
     public int getSize() {
+        if (rawData != null)
+            return rawData.length;
+        
         int size = 0x18 + entries.size() * 8;
 
         for (Tuple<Integer, BTXEntry> a : entries) {
@@ -116,6 +154,11 @@ public class BTXPayload extends ResPayload {
 
     @Override
     public void writeKCAP(Access dest, ResData dataStream) {
+        if (rawData != null) { // never parsed, so it's still unchanged
+            dest.writeByteArray(rawData);
+            return;
+        }
+        
         if (entries.stream().anyMatch(a -> a.getValue().getMeta().isPresent()))
             dest.writeInteger((int) (getSize()
                                      - entries.stream().filter(a -> a.getValue().getMeta().isPresent()).count()
@@ -157,15 +200,18 @@ public class BTXPayload extends ResPayload {
     }
 
     public List<Tuple<Integer, BTXEntry>> getEntries() {
+        parseEntries();
         return entries;
     }
     
     public void setEntries(List<Tuple<Integer, BTXEntry>> list) {
         this.entries = list;
+        this.rawData = null;
+        invalidateLayout();
     }
 
     public Optional<BTXEntry> getEntryById(int id) {
-        return entries.stream().filter(a -> a.getKey() == id).findFirst().map(Tuple::getValue);
+        return getEntries().stream().filter(a -> a.getKey() == id).findFirst().map(Tuple::getValue);
     }
 
     public String getStringById(int id) {
@@ -1,7 +1,13 @@
 package net.digimonworld.decodetools.res.payload;
 
 import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
 import java.nio.ByteBuffer;
+import java.util.List;
 
 import net.digimonworld.decodetools.Main;
 import net.digimonworld.decodetools.PixelFormat;
@@ -9,6 +15,7 @@ import net.digimonworld.decodetools.core.Access;
 import net.digimonworld.decodetools.core.Utils;
 import net.digimonworld.decodetools.res.DummyResData;
 import net.digimonworld.decodetools.res.NameablePayload;
+import net.digimonworld.decodetools.res.PayloadCache;
 import net.digimonworld.decodetools.res.ResData;
 import net.digimonworld.decodetools.res.kcap.AbstractKCAP;
 
@@ -54,6 +61,13 @@ public class GMIOPayload extends NameablePayload {
     private float uvHeight;
     private BufferedImage image;
     
+    // the raw pixel data as read from the file, decoded into the image on first access and kept until it's modified
+    private byte[] pixelData;
+    // the encoded image of a modified texture, only kept from prepareWrite until the following write or modification
+    private byte[] preparedData;
+    private short pixelWidth;
+    private short pixelHeight;
+    
     /**
      * Creates an empty GMIO
      * @param parent the parent KCAP
@@ -127,23 +141,45 @@ public class GMIOPayload extends NameablePayload {
         uvWidth = (float) uvSizeX / width;
         uvHeight = (float) uvSizeY / height;
         
-        byte[] pixelData = source.readByteArray((width * height * format.getBPP()) / 8, (long) dataPointer + dataStart);
-        
-        if (format != PixelFormat.SHADER && (width < 4 || height < 4))
+        if (format != PixelFormat.SHADER && (width < 4 || height < 4)) {
             Main.LOGGER.severe("Found image with width or height smaller than 4. Those are not supported.");
-        else {
-            int[] convertedPixels = format.convertToRGBA(pixelData, width, height);
-            convertedPixels = format.isTiled() ? Utils.untile(width, height, convertedPixels) : convertedPixels;
-            
-            BufferedImage i = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
-            i.setRGB(0, 0, width, height, convertedPixels, 0, width);
-            
-            // flip image to make them logical for humans
-            if (format != PixelFormat.ETC1 && format != PixelFormat.ETC1A4)
-                i = Utils.mirrorImageVertical(i);
-            
-            image = i;
+            return;
         }
+        
+        // decoding is expensive, so it's deferred until someone actually looks at the image
+        pixelData = source.readByteArray((width * height * format.getBPP()) / 8, (long) dataPointer + dataStart);
+        pixelWidth = width;
+        pixelHeight = height;
+    }
+    
+    /**
+     * Decodes the raw pixel data read from the file into the image, if it hasn't been decoded yet. Textures shared
+     * between files only get decoded once, see {@link PayloadCache#TEXTURES}.
+     */
+    private void decodeImage() {
+        if (image != null || pixelData == null)
+            return;
+        
+        int[] pixels = PayloadCache.TEXTURES.get(pixelData, List.of(format, pixelWidth, pixelHeight), this::decodePixels);
+        image = createImage(pixels, pixelWidth, pixelHeight);
+    }
+    
+    private int[] decodePixels(byte[] data) {
+        int[] pixels = new int[pixelWidth * pixelHeight];
+        format.convertToRGBA(data, pixelWidth, pixelHeight, pixels);
+        return pixels;
+    }
+    
+    /*
+     * Creates an ARGB image that is backed by its own copy of the cached pixels, so drawing into it doesn't affect other
+     * textures of the same content.
+     */
+    private static BufferedImage createImage(int[] pixels, int width, int height) {
+        DirectColorModel model = (DirectColorModel) ColorModel.getRGBdefault();
+        DataBufferInt buffer = new DataBufferInt(pixels.clone(), pixels.length);
+        WritableRaster raster = Raster.createPackedRaster(buffer, width, height, width, model.getMasks(), null);
+        
+        return new BufferedImage(model, raster, false, null);
     }
     
     public double getUVHeight() {
@@ -179,11 +215,17 @@ public class GMIOPayload extends NameablePayload {
     }
 
     public int getWidth() {
-        return image != null ? image.getWidth() : 0;
+        if (image != null)
+            return image.getWidth();
+        
+        return pixelData != null ? pixelWidth : 0;
     }
     
     public int getHeight() {
-        return image != null ? image.getHeight() : 0;
+        if (image != null)
+            return image.getHeight();
+        
+        return pixelData != null ? pixelHeight : 0;
     }
     
     public TextureFiltering getMagFilter() {
@@ -231,10 +273,20 @@ public class GMIOPayload extends NameablePayload {
     }
     
     public void setFormat(PixelFormat format) {
+        if (format != this.format)
+            markModified(); // the raw data is only valid for the old format
+        
         this.format = format;
     }
     
+    /**
+     * Gets the image of this texture. It must not be modified, use {@link #setImage(BufferedImage)} or draw on a copy
+     * instead. Otherwise {@link #markModified()} has to be called, or the original data gets written back.
+     * 
+     * @return the image of this texture or null if there is none
+     */
     public BufferedImage getImage() {
+        decodeImage();
         return image;
     }
     
@@ -245,6 +297,8 @@ public class GMIOPayload extends NameablePayload {
         }
         
         this.image = image;
+        this.pixelData = null;
+        this.preparedData = null;
         return true;
     }
     
@@ -265,15 +319,12 @@ public class GMIOPayload extends NameablePayload {
     @Override
     public void writeKCAP(Access dest, ResData dataStream) {
         int dataAddress = 0xFFFFFFFF;
-        if (image != null) {
-            if (!isValidResolution(image, format))
-                Main.LOGGER.severe(() -> String.format("Saving image %s with illegal resolution: %dx%d | This file will cause problems!",
-                                                       getName(),
-                                                       image.getWidth(),
-                                                       image.getHeight()));
-            
-            byte[] pixelData = format.convertToFormat(image);
+        if (pixelData != null) // not modified, so the original data is still valid
             dataAddress = dataStream.add(pixelData, hasName());
+        else if (image != null) {
+            byte[] encoded = preparedData != null ? preparedData : encodeImage();
+            preparedData = null;
+            dataAddress = dataStream.add(encoded, hasName());
         }
         
         dest.writeInteger(getType().getMagicValue());
@@ -284,8 +335,8 @@ public class GMIOPayload extends NameablePayload {
         dest.writeInteger(dataAddress);
         
         dest.writeInteger(format.hasAlpha() ? 2 : 0);
-        dest.writeShort(image == null ? 0 : (short) (image.getWidth() * uvWidth)); // uv width?
-        dest.writeShort(image == null ? 0 : (short) (image.getHeight() * uvHeight)); // uv height?
+        dest.writeShort(getWidth() == 0 ? 0 : (short) (getWidth() * uvWidth)); // uv width?
+        dest.writeShort(getHeight() == 0 ? 0 : (short) (getHeight() * uvHeight)); // uv height?
         dest.writeShort((short) 1); // always 1
         dest.writeShort(format.getUnknown());
         dest.writeByte((byte) (isShaderTexture() ? 1 : 0));
@@ -296,8 +347,8 @@ public class GMIOPayload extends NameablePayload {
         dest.writeByte((byte) unknown.ordinal());
         dest.writeByte((byte) (minFilter.getValue() << 4 | magFilter.getValue()));
         dest.writeByte((byte) 0);
-        dest.writeShort(image == null ? 0 : (short) image.getWidth()); // width
-        dest.writeShort(image == null ? 0 : (short) image.getHeight()); // height
+        dest.writeShort((short) getWidth()); // width
+        dest.writeShort((short) getHeight()); // height
         dest.writeInteger(1);
         dest.writeInteger(0);
         
@@ -309,8 +360,36 @@ public class GMIOPayload extends NameablePayload {
         dest.writeByteArray(extraData);
     }
     
+    @Override
+    public void markModified() {
+        decodeImage();
+        pixelData = null;
+        preparedData = null;
+    }
+    
+    @Override
+    public void prepareWrite() {
+        if (pixelData == null && image != null)
+            preparedData = encodeImage();
+    }
+    
+    private byte[] encodeImage() {
+        if (!isValidResolution(image, format))
+            Main.LOGGER.severe(() -> String.format("Saving image %s with illegal resolution: %dx%d | This file will cause problems!",
+                                                   getName(),
+                                                   image.getWidth(),
+                                                   image.getHeight()));
+        
+        return format.convertToFormat(image);
+    }
+    
     @Override
     public void fillDummyResData(DummyResData data) {
+        if (pixelData != null || preparedData != null) {
+            data.add(pixelData != null ? pixelData : preparedData, hasName());
+            return;
+        }
+        
         if (image == null)
             return;
         
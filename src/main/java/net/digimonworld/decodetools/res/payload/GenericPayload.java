@@ -11,10 +11,7 @@ public class GenericPayload extends ResPayload {
     public GenericPayload(Access source, int dataStart, AbstractKCAP parent, int size, String name) {
         super(parent);
         
-        data = new byte[(int) (size == -1 ? source.getSize() : size)];
-        
-        for (int i = 0; i < data.length; i++)
-            data[i] = source.readByte();
+        data = source.readByteArray((int) (size == -1 ? source.getSize() : size));
     }
     
     public GenericPayload(AbstractKCAP parent, byte[] data) {
@@ -34,12 +31,12 @@ public class GenericPayload extends ResPayload {
     
     @Override
     public void writeKCAP(Access dest, ResData dataStream) {
-        for (byte i : data)
-            dest.writeByte(i);
+        dest.writeByteArray(data);
     }
 
     public void setData(byte[] bytes) {
         this.data = bytes;
+        invalidateLayout();
     }
     
     public byte[] getData() {
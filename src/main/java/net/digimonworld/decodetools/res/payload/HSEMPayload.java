@@ -79,9 +79,7 @@ public class HSEMPayload extends ResPayload {
         this.unknown2 = source.readByte();
         this.unknown3 = source.readByte();
 
-        for (int i = 0; i < 10; i++) {
-            this.headerData[i] = source.readFloat();
-        }
+        this.headerData = source.readFloatArray(10);
 
         this.unknown4 = source.readInteger();
         this.unknown5 = source.readInteger();
@@ -113,8 +111,7 @@ public class HSEMPayload extends ResPayload {
         dest.writeByte(unknown2);
         dest.writeByte(unknown3);
 
-        for (float f : headerData)
-            dest.writeFloat(f);
+        dest.writeFloatArray(headerData);
 
         dest.writeInteger(unknown4);
         dest.writeInteger(unknown5);
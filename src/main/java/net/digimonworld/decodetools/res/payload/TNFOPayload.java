@@ -136,10 +136,12 @@ public class TNFOPayload extends ResPayload {
         
         source.setPosition(startPosition + assignTablePointer + HEADER_SIZE);
         
+        short[] assignTable = source.readShortArray(assignTableEntries * (tnfoType == 2 ? 2 : 1));
+        
         short charCounter = (short) firstCharacter;
-        for (int i = 0; i < assignTableEntries; i++) {
-            short utf16Char = tnfoType == 2 ? source.readShort() : charCounter++;
-            short id = source.readShort();
+        for (int i = 0, j = 0; i < assignTableEntries; i++) {
+            short utf16Char = tnfoType == 2 ? assignTable[j++] : charCounter++;
+            short id = assignTable[j++];
             
             assignments.put(Short.toUnsignedInt(utf16Char), id == (short) 0xFFFF ? null : entries.get(id));
         }
@@ -381,8 +383,10 @@ public class TNFOPayload extends ResPayload {
         if (entry == null)
             return;
         
-        if (entries.contains(entry) && !assignments.containsValue(entry))
+        if (entries.contains(entry) && !assignments.containsValue(entry)) {
             entries.remove(entry);
+            invalidateLayout();
+        }
     }
     
     public void addAssignment(int character, TNFOEntry entry) {
@@ -390,8 +394,10 @@ public class TNFOPayload extends ResPayload {
         if (character <= 0x20)
             return;
         
-        if (assignments.putIfAbsent(character, entry) == null)
+        if (assignments.putIfAbsent(character, entry) == null) {
             entries.add(entry);
+            invalidateLayout();
+        }
     }
     
     public short getUnknown1() {
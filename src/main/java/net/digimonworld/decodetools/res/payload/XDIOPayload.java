@@ -28,6 +28,13 @@ public class XDIOPayload extends ResPayload {
     
     private List<XDIOFace> data;
     
+    // the raw index data as read from the file, decoded into faces on first access and kept until it's modified
+    private byte[] indexData;
+    private int indexCount;
+    private int indexSize;
+    // the packed faces of a modified buffer, only kept from prepareWrite until the following write
+    private byte[] preparedData;
+    
     public XDIOPayload(AbstractKCAP parent, List<XDIOFace> data, short unknown2_1, short unknown2_2, int unknown3) {
         super(parent);
         
@@ -55,13 +62,25 @@ public class XDIOPayload extends ResPayload {
         int dataSize = source.readInteger();
         unknown3 = source.readInteger();
         
-        data = new ArrayList<>();
+        indexData = source.readByteArray(dataSize, (long) dataPointer + dataStart);
+        indexCount = numEntries;
+        indexSize = entrySize;
+    }
+    
+    /**
+     * Decodes the raw index data read from the file into faces, if it hasn't been decoded yet.
+     */
+    private void decodeFaces() {
+        if (data != null)
+            return;
+        
+        data = new ArrayList<>(indexCount / 3);
         
-        XDIOModes mode = XDIOModes.valueOf(entrySize);
-        ByteBuffer b = ByteBuffer.wrap(source.readByteArray(dataSize, (long) dataPointer + dataStart));
+        XDIOModes mode = XDIOModes.valueOf(indexSize);
+        ByteBuffer b = ByteBuffer.wrap(indexData);
         b.order(ByteOrder.LITTLE_ENDIAN);
         
-        for (int i = 0; i < numEntries / 3; i++)
+        for (int i = 0; i < indexCount / 3; i++)
             data.add(new XDIOFace(b, mode));
     }
     
@@ -77,12 +96,21 @@ public class XDIOPayload extends ResPayload {
     
     @Override
     public void writeKCAP(Access dest, ResData dataStream) {
-        int max = data.stream().flatMapToInt(a -> IntStream.builder().add(a.getVert1()).add(a.getVert2()).add(a.getVert3()).build()).max().orElse(0);
-        XDIOModes mode = XDIOModes.getFittingMode(max);
+        int count;
+        int size;
+        byte[] array;
         
-        byte[] array = new byte[data.size() * 3 * mode.getSize()];
-        ByteBuffer buff = ByteBuffer.wrap(array);
-        data.forEach(a -> a.write(buff, mode));
+        if (indexData != null) { // not modified, so the original data is still valid
+            count = indexCount;
+            size = indexSize;
+            array = indexData;
+        }
+        else {
+            count = data.size() * 3;
+            array = preparedData != null ? preparedData : encodeFaces();
+            size = count != 0 ? array.length / count : getFittingMode().getSize();
+            preparedData = null;
+        }
         
         int dataAddress = dataStream.add(array, false);
         
@@ -92,22 +120,54 @@ public class XDIOPayload extends ResPayload {
         dest.writeShort(unknown2_2);
         dest.writeInteger(dataAddress);
         
-        dest.writeInteger(data.size() * 3);
-        dest.writeInteger(mode.getSize());
+        dest.writeInteger(count);
+        dest.writeInteger(size);
         dest.writeInteger(array.length);
         dest.writeInteger(unknown3);
     }
     
     @Override
     public void fillDummyResData(DummyResData resData) {
-        int max = data.stream().flatMapToInt(a -> IntStream.builder().add(a.getVert1()).add(a.getVert2()).add(a.getVert3()).build()).max().orElse(0);
-        XDIOModes mode = XDIOModes.getFittingMode(max);
-        
+        if (indexData != null)
+            resData.add(indexData, false);
+        else
+            resData.add(new byte[data.size() * 3 * getFittingMode().getSize()], false);
+    }
+    
+    @Override
+    public void markModified() {
+        decodeFaces();
+        indexData = null;
+        preparedData = null;
+    }
+    
+    @Override
+    public void prepareWrite() {
+        if (indexData == null)
+            preparedData = encodeFaces();
+    }
+    
+    private byte[] encodeFaces() {
+        XDIOModes mode = getFittingMode();
         byte[] array = new byte[data.size() * 3 * mode.getSize()];
-        resData.add(array, false);
+        ByteBuffer buff = ByteBuffer.wrap(array);
+        data.forEach(a -> a.write(buff, mode));
+        return array;
+    }
+    
+    private XDIOModes getFittingMode() {
+        int max = data.stream().flatMapToInt(a -> IntStream.builder().add(a.getVert1()).add(a.getVert2()).add(a.getVert3()).build()).max().orElse(0);
+        return XDIOModes.getFittingMode(max);
     }
     
+    /**
+     * Gets the faces of this index buffer. Reading them keeps the original data, so {@link #markModified()} has to be
+     * called after modifying them, or the original data gets written back.
+     * 
+     * @return the faces of this index buffer
+     */
     public List<XDIOFace> getFaces() {
+        decodeFaces();
         return data;
     }
 }
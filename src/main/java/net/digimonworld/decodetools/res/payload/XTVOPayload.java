@@ -57,6 +57,13 @@ public class XTVOPayload extends ResPayload {
     
     private List<XTVOVertex> data = new ArrayList<>();
     
+    // the raw vertex data as read from the file, decoded into vertices on first access and kept until it's modified
+    private byte[] vertexData;
+    private int vertexCount;
+    private int vertexSize;
+    // the packed vertices of a modified buffer, only kept from prepareWrite until the following write or modification
+    private byte[] preparedData;
+    
     public XTVOPayload(AbstractKCAP parent, List<XTVOAttribute> attributes, List<XTVOVertex> data, int shaderId, short unknown2, short id,
             int unknown7, int unknown9, int unknown10) {
         super(parent);
@@ -99,32 +106,42 @@ public class XTVOPayload extends ResPayload {
         short attributeCount = source.readShort();
         source.readShort(); // attributePtr, always 0x74?
         
-        for (int i = 0; i < 4; i++)
-            mTex0[i] = source.readFloat();
-        for (int i = 0; i < 4; i++)
-            mTex1[i] = source.readFloat();
-        for (int i = 0; i < 4; i++)
-            mTex2[i] = source.readFloat();
-        for (int i = 0; i < 4; i++)
-            mTex3[i] = source.readFloat();
+        mTex0 = source.readFloatArray(4);
+        mTex1 = source.readFloatArray(4);
+        mTex2 = source.readFloatArray(4);
+        mTex3 = source.readFloatArray(4);
         
         for (int i = 0; i < attributeCount; i++) {
             XTVOAttribute attrib = new XTVOAttribute(source);
             attributes.put(attrib.getRegisterId(), attrib);
         }
         
-        ByteBuffer b = ByteBuffer.wrap(source.readByteArray(dataSize, (long) dataStart + dataPointer));
+        data = null;
+        vertexData = source.readByteArray(dataSize, (long) dataStart + dataPointer);
+        vertexCount = numEntries;
+        vertexSize = entrySize;
+        
+        dataStartOnLoad = (long) dataStart + dataPointer;
+    }
+    
+    /**
+     * Decodes the raw vertex data read from the file into vertices, if it hasn't been decoded yet.
+     */
+    private void decodeVertices() {
+        if (data != null)
+            return;
+        
+        data = new ArrayList<>(vertexCount);
+        ByteBuffer b = ByteBuffer.wrap(vertexData);
         b.order(ByteOrder.LITTLE_ENDIAN);
         
-        for (int i = 0; i < numEntries; i++) {
-            byte[] buffArray = new byte[entrySize];
+        for (int i = 0; i < vertexCount; i++) {
+            byte[] buffArray = new byte[vertexSize];
             b.get(buffArray);
             ByteBuffer buff = ByteBuffer.wrap(buffArray);
             buff.order(ByteOrder.LITTLE_ENDIAN);
             data.add(new XTVOVertex(buff, attributes.values()));
         }
-        
-        dataStartOnLoad = (long) dataStart + dataPointer;
     }
     
     public int getShaderId() {
@@ -143,17 +160,21 @@ public class XTVOPayload extends ResPayload {
     
     @Override
     public void writeKCAP(Access dest, ResData dataStream) {
-        int size = 0;
-        for (XTVOAttribute attr : attributes.values()) {
-            size = Utils.align(size, attr.getValueType().getAlignment());
-            size += attr.getCount() * attr.getValueType().getAlignment();
-        }
-        
-        size = Utils.align(size, 2);
+        int size;
+        int count;
+        byte[] array;
         
-        byte[] array = new byte[data.size() * size];
-        ByteBuffer buff = ByteBuffer.wrap(array);
-        data.forEach(a -> buff.put(a.write()));
+        if (vertexData != null) { // not modified, so the original data is still valid
+            size = vertexSize;
+            count = vertexCount;
+            array = vertexData;
+        }
+        else {
+            size = getVertexSize();
+            count = data.size();
+            array = preparedData != null ? preparedData : encodeVertices();
+            preparedData = null;
+        }
         
         int dataAddress = dataStream.add(array, false);
         
@@ -163,7 +184,7 @@ public class XTVOPayload extends ResPayload {
         dest.writeShort(id);
         dest.writeInteger(dataAddress);
         
-        dest.writeInteger(data.size());
+        dest.writeInteger(count);
         dest.writeInteger(size);
         dest.writeInteger(array.length);
         dest.writeInteger(unknown7);
@@ -176,14 +197,10 @@ public class XTVOPayload extends ResPayload {
         dest.writeShort((short) attributes.size());
         dest.writeShort((short) 0x74); //
         
-        for (float f : mTex0)
-            dest.writeFloat(f);
-        for (float f : mTex1)
-            dest.writeFloat(f);
-        for (float f : mTex2)
-            dest.writeFloat(f);
-        for (float f : mTex3)
-            dest.writeFloat(f);
+        dest.writeFloatArray(mTex0);
+        dest.writeFloatArray(mTex1);
+        dest.writeFloatArray(mTex2);
+        dest.writeFloatArray(mTex3);
         
         for (XTVOAttribute attr : attributes.values())
             attr.writeKCAP(dest);
@@ -191,27 +208,60 @@ public class XTVOPayload extends ResPayload {
     
     @Override
     public void fillDummyResData(DummyResData resData) {
+        if (vertexData != null)
+            resData.add(vertexData, false);
+        else
+            resData.add(new byte[data.size() * getVertexSize()], false);
+    }
+    
+    @Override
+    public void markModified() {
+        decodeVertices();
+        vertexData = null;
+        preparedData = null;
+    }
+    
+    @Override
+    public void prepareWrite() {
+        if (vertexData == null)
+            preparedData = encodeVertices();
+    }
+    
+    private byte[] encodeVertices() {
+        byte[] array = new byte[data.size() * getVertexSize()];
+        ByteBuffer buff = ByteBuffer.wrap(array);
+        data.forEach(a -> buff.put(a.write()));
+        return array;
+    }
+    
+    private int getVertexSize() {
         int size = 0;
         for (XTVOAttribute attr : attributes.values()) {
             size = Utils.align(size, attr.getValueType().getAlignment());
             size += attr.getCount() * attr.getValueType().getAlignment();
         }
         
-        size = Utils.align(size, 2);
-        
-        byte[] array = new byte[data.size() * size];
-        resData.add(array, false);
+        return Utils.align(size, 2);
     }
     
+    /**
+     * Gets the vertices of this vertex buffer. Reading them keeps the original data, so {@link #markModified()} has to
+     * be called after modifying them or their attributes, or the original data gets written back.
+     * 
+     * @return the vertices of this vertex buffer
+     */
     public List<XTVOVertex> getVertices() {
+        decodeVertices();
         return data;
     }
     
     public Optional<XTVOAttribute> getAttribute(XTVORegisterType type) {
+        decodeVertices(); // the vertices have to be decoded with the original attributes
         return Optional.ofNullable(attributes.get(type));
     }
     
     public Map<XTVORegisterType, XTVOAttribute> getAttributes() {
+        decodeVertices(); // the vertices have to be decoded with the original attributes
         return attributes;
     }
     
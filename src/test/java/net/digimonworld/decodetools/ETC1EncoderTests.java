@@ -0,0 +1,82 @@
+package net.digimonworld.decodetools;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import org.junit.Test;
+
+import net.digimonworld.decodetools.ETC1Encoder.Quality;
+
+public class ETC1EncoderTests {
+    
+    private static BufferedImage createImage(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Random random = new Random(1234);
+        
+        // smooth gradients with some noise and a hard edge, like most textures
+        for (int x = 0; x < width; x++)
+            for (int y = 0; y < height; y++) {
+                int r = Math.min(255, x * 255 / width + random.nextInt(8));
+                int g = Math.min(255, y * 255 / height + random.nextInt(8));
+                int b = x > width / 2 ? 200 : 40;
+                int a = (x + y) * 255 / (width + height);
+                image.setRGB(x, y, a << 24 | r << 16 | g << 8 | b);
+            }
+        
+        return image;
+    }
+    
+    private static double psnr(BufferedImage image, int[] decoded) {
+        double error = 0;
+        
+        for (int x = 0; x < image.getWidth(); x++)
+            for (int y = 0; y < image.getHeight(); y++) {
+                int expected = image.getRGB(x, y);
+                int actual = decoded[y * image.getWidth() + x];
+                
+                for (int shift = 0; shift < 24; shift += 8) {
+                    int diff = ((expected >>> shift) & 0xFF) - ((actual >>> shift) & 0xFF);
+                    error += diff * diff;
+                }
+            }
+        
+        double mse = error / (image.getWidth() * image.getHeight() * 3);
+        return 10 * Math.log10(255 * 255 / mse);
+    }
+    
+    @Test
+    public void testETC1Quality() {
+        BufferedImage image = createImage(64, 32);
+        
+        double previous = 0;
+        for (Quality quality : Quality.values()) {
+            byte[] data = PixelFormatEncoder.convertToETC1(image, quality);
+            assertEquals(64 * 32 / 2, data.length);
+            
+            double psnr = psnr(image, PixelFormat.ETC1.convertToRGBA(data, 64, 32));
+            assertTrue("PSNR of " + quality + " too low: " + psnr, psnr > 27);
+            assertTrue("PSNR of " + quality + " got worse: " + psnr, psnr >= previous - 0.01);
+            previous = psnr;
+        }
+    }
+    
+    @Test
+    public void testETC1A4() {
+        BufferedImage image = createImage(32, 64);
+        byte[] data = PixelFormat.ETC1A4.convertToFormat(image);
+        assertEquals(32 * 64, data.length);
+        
+        int[] decoded = PixelFormat.ETC1A4.convertToRGBA(data, 32, 64);
+        assertTrue(psnr(image, decoded) > 27);
+        
+        for (int x = 0; x < 32; x++)
+            for (int y = 0; y < 64; y++) {
+                int expected = image.getRGB(x, y) >>> 24;
+                int actual = decoded[y * 32 + x] >>> 24;
+                assertTrue(Math.abs(expected - actual) <= 8);
+            }
+    }
+}
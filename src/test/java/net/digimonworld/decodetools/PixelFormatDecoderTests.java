@@ -1,7 +1,11 @@
 package net.digimonworld.decodetools;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
 import org.junit.Test;
 
 import net.digimonworld.decodetools.core.Utils;
@@ -35,4 +39,94 @@ public class PixelFormatDecoderTests {
         assertEquals(0b11111111, Utils.extend6To8(-1));
         assertEquals(0b00000000, Utils.extend6To8(0b000000));
     }
+    
+    @Test
+    public void testETC1() {
+        // differential, flipped, R 10 - 1, G 0 + 0, B 20 + 0, tables 0 and 7, every pixel using the +a modifier
+        long value = 10L << 59 | 7L << 56 | 20L << 43 | 7L << 34 | 1L << 33 | 1L << 32;
+        
+        // large enough to be decoded in parallel
+        int size = 256;
+        byte[] input = new byte[size * size / 2];
+        for (int i = 0; i < input.length; i++)
+            input[i] = (byte) (value >>> (i % 8 * 8));
+        
+        int[] output = PixelFormatDecoder.convertFromETC1(input, size, size);
+        assertEquals(size * size, output.length);
+        
+        for (int y = 0; y < size; y++)
+            for (int x = 0; x < size; x++)
+                assertEquals(y % 4 < 2 ? 0xFF5402A7 : 0xFF792FD4, output[y * size + x]);
+    }
+    
+    @Test
+    public void testETC1A4() {
+        // individual, not flipped, R 1 and 2, G 3 and 4, B 5 and 6, table 0, every pixel using the -b modifier
+        long value = 1L << 60 | 2L << 56 | 3L << 52 | 4L << 48 | 5L << 44 | 6L << 40 | 0xFFFFFFFFL;
+        // the alpha of every pixel is its id
+        long alpha = 0xFEDCBA9876543210L;
+        
+        byte[] input = new byte[8 * 8];
+        for (int i = 0; i < input.length; i++)
+            input[i] = (byte) ((i % 16 < 8 ? alpha : value) >>> (i % 8 * 8));
+        
+        int[] output = PixelFormatDecoder.convertFromETC1A4(input, 8, 8);
+        assertEquals(8 * 8, output.length);
+        
+        for (int y = 0; y < 8; y++)
+            for (int x = 0; x < 8; x++) {
+                int a = (x % 4 * 4 + y % 4) * 0x11;
+                int rgb = x % 4 < 2 ? 0x092B4D : 0x1A3C5E;
+                assertEquals(a << 24 | rgb, output[y * 8 + x]);
+            }
+    }
+    
+    @Test
+    public void testDecodeInto() {
+        Random random = new Random(0);
+        int width = 32;
+        int height = 16;
+        
+        for (PixelFormat format : new PixelFormat[] { PixelFormat.RGBA8, PixelFormat.LA4, PixelFormat.A4, PixelFormat.ETC1A4 }) {
+            byte[] input = new byte[width * height * format.getBPP() / 8];
+            random.nextBytes(input);
+            
+            // decoding step by step, the untiled data is upside down
+            int[] expected = format.convertToRGBA(input, width, height);
+            if (format.isTiled()) {
+                int[] untiled = Utils.untile((short) width, (short) height, expected);
+                for (int y = 0; y < height; y++)
+                    System.arraycopy(untiled, y * width, expected, (height - 1 - y) * width, width);
+            }
+            
+            int[] actual = new int[width * height];
+            format.convertToRGBA(input, width, height, actual);
+            assertArrayEquals(expected, actual);
+        }
+    }
+    
+    @Test
+    public void testRoundTrip() {
+        Random random = new Random(0);
+        int width = 16;
+        int height = 32;
+        
+        // packed ARGB images get read directly, all others through getRGB
+        for (int type : new int[] { BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_4BYTE_ABGR }) {
+            BufferedImage image = new BufferedImage(width, height, type);
+            for (int y = 0; y < height; y++)
+                for (int x = 0; x < width; x++)
+                    image.setRGB(x, y, random.nextInt());
+            
+            int[] expected = image.getRGB(0, 0, width, height, null, 0, width);
+            
+            int[] actual = new int[width * height];
+            PixelFormat.RGBA8.convertToRGBA(PixelFormat.RGBA8.convertToFormat(image), width, height, actual);
+            assertArrayEquals(expected, actual);
+            
+            PixelFormat.A4.convertToRGBA(PixelFormat.A4.convertToFormat(image), width, height, actual);
+            for (int i = 0; i < actual.length; i++)
+                assertEquals(expected[i] >>> 28, actual[i] >>> 28);
+        }
+    }
 }
@@ -2,6 +2,9 @@ package net.digimonworld.decodetools;
 
 import static org.junit.Assert.fail;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.concurrent.Callable;
 
 public class TestUtils {
@@ -20,4 +23,16 @@ public class TestUtils {
         if (!expected.isInstance(ee))
             fail("Expected <" + expected.getName() + "> to be thrown.");
     }
+    
+    public static byte[] readResource(String name) throws IOException {
+        try (InputStream in = TestUtils.class.getResourceAsStream(name)) {
+            return in.readAllBytes();
+        }
+    }
+    
+    public static File createTempFile(String prefix, String suffix) throws IOException {
+        File file = File.createTempFile(prefix, suffix);
+        file.deleteOnExit();
+        return file;
+    }
 }
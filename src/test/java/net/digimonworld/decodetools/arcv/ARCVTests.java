@@ -0,0 +1,139 @@
+package net.digimonworld.decodetools.arcv;
+
+import static net.digimonworld.decodetools.TestUtils.assertException;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import net.digimonworld.decodetools.core.Access;
+import net.digimonworld.decodetools.core.MappedFileAccess;
+import net.digimonworld.decodetools.res.ResPayload;
+import net.digimonworld.decodetools.res.ResPayload.Payload;
+
+public class ARCVTests {
+    private static final String[] FILES = { "btxSpeakers.res", "btxNoSpeakers.res", "LanguageKeep_jp.res" };
+    
+    private static Path createARCV() throws IOException {
+        Path input = createInput();
+        Path output = Files.createTempDirectory("arcv");
+        
+        new ARCVFile(input.toFile(), true).saveFiles(output.toFile());
+        return output;
+    }
+    
+    private static Path createInput() throws IOException {
+        Path input = Files.createTempDirectory("arcvInput");
+        
+        for (String file : FILES) {
+            try (InputStream in = ARCVTests.class.getResourceAsStream("/" + file)) {
+                Path target = input.resolve("text").resolve(file);
+                Files.createDirectories(target.getParent());
+                Files.copy(in, target);
+            }
+        }
+        
+        return input;
+    }
+    
+    @Test
+    public void testExtract() throws IOException {
+        Path arcv = createARCV();
+        Path output = Files.createTempDirectory("arcvOutput");
+        AtomicInteger lastProgress = new AtomicInteger();
+        
+        try (Access access = new MappedFileAccess(arcv.resolve("ARCVINFO.BIN").toFile())) {
+            new VCRAFile(access).extractARCV(arcv.resolve("ARCV0.BIN"), output, null, (done, total) -> {
+                assertEquals(FILES.length, (int) total);
+                lastProgress.accumulateAndGet(done, Math::max);
+            });
+        }
+        
+        assertEquals(FILES.length, lastProgress.get());
+        for (String file : FILES) {
+            try (InputStream in = ARCVTests.class.getResourceAsStream("/" + file)) {
+                assertArrayEquals(in.readAllBytes(), Files.readAllBytes(output.resolve("text").resolve(file)));
+            }
+        }
+    }
+    
+    @Test
+    public void testExtractGlob() throws IOException {
+        Path arcv = createARCV();
+        Path output = Files.createTempDirectory("arcvOutput");
+        
+        try (Access access = new MappedFileAccess(arcv.resolve("ARCVINFO.BIN").toFile())) {
+            new VCRAFile(access).extractARCV(arcv.resolve("ARCV0.BIN"), output, "text/btx*", null);
+        }
+        
+        assertEquals(404, Files.size(output.resolve("text/btxSpeakers.res")));
+        assertEquals(534, Files.size(output.resolve("text/btxNoSpeakers.res")));
+        assertFalse(Files.exists(output.resolve("text/LanguageKeep_jp.res")));
+    }
+    
+    @Test
+    public void testIncrementalRebuild() throws IOException {
+        Path input = createInput();
+        Path full = Files.createTempDirectory("arcv");
+        Path incremental = Files.createTempDirectory("arcv");
+        
+        new ARCVFile(input.toFile(), true).saveFiles(incremental.toFile(), true);
+        
+        // modify one file, the others get reused from the previous build
+        Files.write(input.resolve("text/btxSpeakers.res"), new byte[0x2000], StandardOpenOption.APPEND);
+        new ARCVFile(input.toFile(), true).saveFiles(incremental.toFile(), true);
+        new ARCVFile(input.toFile(), true).saveFiles(full.toFile());
+        
+        assertArrayEquals(Files.readAllBytes(full.resolve("ARCV0.BIN")), Files.readAllBytes(incremental.resolve("ARCV0.BIN")));
+        assertArrayEquals(Files.readAllBytes(full.resolve("ARCVINFO.BIN")), Files.readAllBytes(incremental.resolve("ARCVINFO.BIN")));
+        assertArrayEquals(Files.readAllBytes(full.resolve(ARCVManifest.FILE_NAME)),
+                          Files.readAllBytes(incremental.resolve(ARCVManifest.FILE_NAME)));
+    }
+    
+    @Test
+    public void testInterruptedBuild() throws IOException {
+        Path input = createInput();
+        Path output = Files.createTempDirectory("arcv");
+        
+        // the build gets interrupted while waiting for the first file
+        Thread.currentThread().interrupt();
+        new ARCVFile(input.toFile(), true).saveFiles(output.toFile());
+        
+        assertTrue(Thread.interrupted());
+        assertFalse(Files.exists(output.resolve("ARCV0.BIN.tmp")));
+        assertFalse(Files.exists(output.resolve("ARCV0.BIN")));
+    }
+    
+    @Test
+    public void testFileSystem() throws IOException {
+        Path arcv = createARCV();
+        
+        // a cache too small for any file still has to work
+        try (ARCVFileSystem fs = new ARCVFileSystem(arcv.toFile(), 1)) {
+            assertEquals(FILES.length, fs.getPaths().size());
+            
+            for (int i = 0; i < 2; i++) {
+                for (String file : FILES) {
+                    try (InputStream in = ARCVTests.class.getResourceAsStream("/" + file); Access access = fs.open("text/" + file)) {
+                        byte[] expected = in.readAllBytes();
+                        assertEquals(expected.length, access.getSize());
+                        assertArrayEquals(expected, access.readByteArray(expected.length));
+                    }
+                }
+            }
+            
+            assertEquals(Payload.KCAP, ResPayload.craft(fs.open("text/LanguageKeep_jp.res")).getType());
+            assertException(FileNotFoundException.class, () -> fs.open("text/missing.res"));
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package net.digimonworld.decodetools.core;
+
+import static net.digimonworld.decodetools.TestUtils.assertException;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class AccessTests {
+    
+    private static File createTestFile() throws IOException {
+        File file = Files.createTempFile("access", ".bin").toFile();
+        file.deleteOnExit();
+        
+        try (Access access = new FileAccess(file)) {
+            access.writeInteger(0x12345678);
+            access.writeShort((short) 0x1234);
+            access.writeChar('A');
+            access.writeFloat(1.5f);
+            access.writeLong(0x0102030405060708L);
+            access.writeString("Test", "ASCII");
+            access.writeByte((byte) 0);
+        }
+        
+        return file;
+    }
+    
+    @Test
+    public void testMappedFileAccess() throws IOException {
+        File file = createTestFile();
+        
+        try (Access access = new MappedFileAccess(file)) {
+            assertEquals(25, access.getSize());
+            
+            assertEquals(0x12345678, access.readInteger());
+            assertEquals(0x1234, access.readShort());
+            assertEquals('A', access.readChar());
+            assertEquals(1.5f, access.readFloat(), 0f);
+            assertEquals(0x0102030405060708L, access.readLong());
+            assertEquals("Test", access.readASCIIString());
+            assertEquals(25, access.getPosition());
+            
+            assertEquals(0x78, access.readByte(0));
+            assertEquals(0x5678, access.readShort(0));
+            assertEquals("Test", access.readString(20, 4, "ASCII"));
+            assertArrayEquals(new byte[] { 0x34, 0x12, 0x41, 0x00 }, access.readByteArray(4, 4));
+            
+            // reading beyond the end of the file yields zeroes
+            assertEquals(0x00000074, access.readInteger(23));
+            assertArrayEquals(new byte[] { 0x00, 0x00 }, access.readByteArray(2, 40));
+            
+            assertException(UnsupportedOperationException.class, () -> {
+                access.writeInteger(0);
+                return null;
+            });
+        }
+    }
+    
+    private static void writeTestPattern(Access access) {
+        Random random = new Random(42);
+        
+        for (int i = 0; i < 0x8000; i++)
+            access.writeInteger(random.nextInt());
+        
+        // absolute writes across page boundaries, before and after the current position
+        access.writeLong(0x0102030405060708L, CachedFileAccess.PAGE_SIZE - 4);
+        access.writeInteger(0x12345678, 3 * CachedFileAccess.PAGE_SIZE - 2);
+        access.writeByteArray(new byte[] { 1, 2, 3 }, 0x10);
+        
+        // moving past the end grows the file
+        access.setPosition(5 * CachedFileAccess.PAGE_SIZE + 7);
+        access.writeShort((short) 0x1234);
+        access.setPosition(7 * CachedFileAccess.PAGE_SIZE);
+    }
+    
+    @Test
+    public void testCachedFileAccess() throws IOException {
+        File expected = Files.createTempFile("access", ".bin").toFile();
+        File actual = Files.createTempFile("access", ".bin").toFile();
+        expected.deleteOnExit();
+        actual.deleteOnExit();
+        
+        try (Access access = new FileAccess(expected)) {
+            writeTestPattern(access);
+        }
+        
+        // a single cached page forces the pages to get evicted and read back in
+        try (Access access = new CachedFileAccess(actual, 1)) {
+            writeTestPattern(access);
+            
+            assertEquals(7 * CachedFileAccess.PAGE_SIZE, access.getSize());
+            assertEquals(0x12345678, access.readInteger(3 * CachedFileAccess.PAGE_SIZE - 2));
+            assertEquals(0x1234, access.readShort(5 * CachedFileAccess.PAGE_SIZE + 7));
+        }
+        
+        assertArrayEquals(Files.readAllBytes(expected.toPath()), Files.readAllBytes(actual.toPath()));
+    }
+    
+    @Test
+    public void testGrowableBufferAccess() throws IOException {
+        File expected = Files.createTempFile("access", ".bin").toFile();
+        File actual = Files.createTempFile("access", ".bin").toFile();
+        expected.deleteOnExit();
+        actual.deleteOnExit();
+        
+        try (Access access = new FileAccess(expected)) {
+            writeTestPattern(access);
+        }
+        
+        try (GrowableBufferAccess access = new GrowableBufferAccess();
+             FileChannel chan = FileChannel.open(actual.toPath(), StandardOpenOption.WRITE)) {
+            writeTestPattern(access);
+            
+            assertEquals(7 * CachedFileAccess.PAGE_SIZE, access.getSize());
+            assertEquals(0x12345678, access.readInteger(3 * CachedFileAccess.PAGE_SIZE - 2));
+            assertEquals(0, access.readInteger(6 * CachedFileAccess.PAGE_SIZE));
+            
+            access.writeTo(chan);
+        }
+        
+        assertArrayEquals(Files.readAllBytes(expected.toPath()), Files.readAllBytes(actual.toPath()));
+    }
+    
+    private static void testArrays(Access access) {
+        int[] ints = { 1, -2, 0x12345678, Integer.MIN_VALUE };
+        float[] floats = { 1.5f, -0.25f, Float.NaN };
+        char[] chars = { 'a', '\u3042', 0 };
+        short[] shorts = { 1, -1, 0x1234 };
+        
+        access.writeIntArray(ints);
+        access.writeFloatArray(floats);
+        access.writeCharArray(chars);
+        access.writeShortArray(shorts);
+        assertEquals(40, access.getPosition());
+        
+        assertEquals(0x12345678, access.readInteger(8));
+        assertEquals(-0.25f, access.readFloat(20), 0f);
+        assertEquals('\u3042', access.readChar(30));
+        assertEquals(0x1234, access.readShort(38));
+        
+        access.setPosition(0);
+        assertArrayEquals(ints, access.readIntArray(4));
+        assertArrayEquals(floats, access.readFloatArray(3), 0f);
+        assertArrayEquals(chars, access.readCharArray(3));
+        assertArrayEquals(shorts, access.readShortArray(3));
+        assertEquals(40, access.getPosition());
+        
+        access.writeIntArray(new int[] { 5, 6 }, 4);
+        assertArrayEquals(new int[] { 1, 5, 6, Integer.MIN_VALUE }, access.readIntArray(4, 0));
+        assertArrayEquals(floats, access.readFloatArray(3, 16), 0f);
+        assertArrayEquals(chars, access.readCharArray(3, 28));
+        assertEquals(40, access.getPosition());
+    }
+    
+    @Test
+    public void testArrayAccess() throws IOException {
+        File file = Files.createTempFile("access", ".bin").toFile();
+        file.deleteOnExit();
+        
+        testArrays(new StreamAccess(new byte[40]));
+        
+        try (Access access = new GrowableBufferAccess()) {
+            testArrays(access);
+        }
+        try (Access access = new CachedFileAccess(file)) {
+            testArrays(access);
+        }
+        try (Access access = new FileAccess(file)) {
+            testArrays(access);
+        }
+    }
+    
+    private static void testSlice(Access access) {
+        Access slice = access.slice(6, 14);
+        
+        assertEquals(14, slice.getSize());
+        assertEquals(0, slice.getPosition());
+        assertEquals('A', slice.readChar());
+        assertEquals(1.5f, slice.readFloat(), 0f);
+        assertEquals(0x0102030405060708L, slice.readLong(6));
+        assertEquals(6, slice.getPosition());
+        assertEquals(0, access.getPosition());
+        
+        Access nested = slice.slice(6, 8);
+        assertEquals(0x0102030405060708L, nested.readLong());
+        
+        assertException(RuntimeException.class, () -> slice.readLong(10));
+        assertException(RuntimeException.class, () -> slice.slice(10, 8));
+    }
+    
+    @Test
+    public void testSliceAccess() throws IOException {
+        File file = createTestFile();
+        
+        try (Access access = new MappedFileAccess(file)) {
+            testSlice(access);
+        }
+        try (Access access = new FileAccess(file)) {
+            testSlice(access);
+            
+            // writes go through to the underlying storage
+            access.slice(20, 4).writeString("Slic", "ASCII");
+            assertEquals("Slic", access.readString(20, 4, "ASCII"));
+        }
+        try (Access access = new StreamAccess(Files.readAllBytes(file.toPath()))) {
+            testSlice(access);
+        }
+    }
+    
+    private static void testStrings(Access access, String text) {
+        assertEquals("ASCII", access.readASCIIString(1));
+        assertEquals("ASCII", access.readNullTerminatedString(1, StandardCharsets.US_ASCII));
+        
+        access.setPosition(8);
+        assertEquals(text, access.readNullTerminatedString(StandardCharsets.UTF_16LE));
+        assertEquals(10 + text.length() * 2, access.getPosition());
+        assertEquals("", access.readNullTerminatedString(StandardCharsets.UTF_16LE));
+        
+        // unterminated strings end with the data
+        assertEquals("end", access.readNullTerminatedString(access.getSize() - 3, StandardCharsets.US_ASCII));
+    }
+    
+    @Test
+    public void testNullTerminatedString() throws IOException {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 300; i++)
+            builder.append(i % 2 == 0 ? '\u4100' : 'A');
+        String text = builder.toString();
+        
+        File file = Files.createTempFile("access", ".bin").toFile();
+        file.deleteOnExit();
+        
+        try (Access access = new FileAccess(file)) {
+            access.writeString("?ASCII\0\0", "ASCII");
+            access.writeString(text + "\0\0", "UTF-16LE");
+            access.writeString("end", "ASCII");
+            
+            testStrings(access, text);
+        }
+        try (Access access = new MappedFileAccess(file)) {
+            testStrings(access, text);
+        }
+        try (Access access = new StreamAccess(Files.readAllBytes(file.toPath()))) {
+            testStrings(access, text);
+            testStrings(access.slice(0, access.getSize()), text);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package net.digimonworld.decodetools.core;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares ways of untiling texture data: the cached swizzle tables of {@link Utils#untile(short, short, int[])}, the
+ * bit interleaving per pixel it used before, and a tile by tile copy with a fixed 64 entry table, whose constant 8 pixel
+ * rows the JIT can unroll and vectorize. The Vector API would need an incubator module, which the build doesn't enable.
+ * <p>
+ * Not a unit test, run it through {@code org.openjdk.jmh.Main} on the test classpath.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TileBenchmark {
+    // the offsets within an 8x8 tile, indexed by y * 8 + x
+    private static final int[] TILE_OFFSETS = new int[64];
+    
+    static {
+        for (int y = 0; y < 8; y++)
+            for (int x = 0; x < 8; x++)
+                TILE_OFFSETS[y * 8 + x] = interleave(x, y);
+    }
+    
+    @Param({ "64", "256", "1024" })
+    private int size;
+    
+    private int[] tiled;
+    private int[] dest;
+    
+    @Setup
+    public void setup() {
+        tiled = new Random(0).ints(size * size).toArray();
+        dest = new int[size * size];
+    }
+    
+    @Benchmark
+    public int[] table() {
+        return Utils.untile((short) size, (short) size, tiled);
+    }
+    
+    @Benchmark
+    public int[] tableInPlace() {
+        System.arraycopy(tiled, 0, dest, 0, dest.length);
+        Utils.untileInPlace(size, size, dest);
+        return dest;
+    }
+    
+    @Benchmark
+    public int[] bitTrick() {
+        int[] data = new int[size * size];
+        
+        for (int i = 0; i < size; i++)
+            for (int j = 0; j < size; j++) {
+                int posY = size - 1 - i;
+                int offset = interleave(j, posY) + (j & ~7) * 8 + (posY & ~7) * size;
+                data[i * size + j] = tiled[offset];
+            }
+        
+        return data;
+    }
+    
+    @Benchmark
+    public int[] tileByTile() {
+        int[] data = new int[size * size];
+        int tiles = size / 8;
+        
+        for (int tileY = 0; tileY < tiles; tileY++)
+            for (int tileX = 0; tileX < tiles; tileX++) {
+                int base = (tileY * tiles + tileX) * 64;
+                
+                for (int y = 0; y < 8; y++) {
+                    int start = (size - 1 - tileY * 8 - y) * size + tileX * 8;
+                    for (int x = 0; x < 8; x++)
+                        data[start + x] = tiled[base + TILE_OFFSETS[y * 8 + x]];
+                }
+            }
+        
+        return data;
+    }
+    
+    private static int interleave(int x, int y) {
+        int i = (x & 7) | ((y & 7) << 8);
+        i = (i ^ (i << 2)) & 0x1313;
+        i = (i ^ (i << 1)) & 0x1515;
+        i = (i | (i >>> 7)) & 0x3F;
+        return i;
+    }
+}
@@ -1,6 +1,7 @@
 package net.digimonworld.decodetools.core;
 
 import static net.digimonworld.decodetools.TestUtils.assertException;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
@@ -13,6 +14,7 @@ import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.nio.IntBuffer;
 import java.nio.file.Files;
 import java.util.Arrays;
 import java.util.List;
@@ -226,9 +228,40 @@ public class UtilsTests {
         assertEquals(0b111111, m.invoke(null, 0xFFFFFFFF, 0xFFFFFFFF));
     }
     
+    @Test
+    public void testTile() {
+        int[][] resolutions = { { 8, 8 }, { 32, 16 }, { 16, 64 } };
+        
+        for (int[] resolution : resolutions) {
+            int width = resolution[0];
+            int height = resolution[1];
+            
+            int[] pixels = new int[width * height];
+            for (int i = 0; i < pixels.length; i++)
+                pixels[i] = i;
+            
+            int[] tiled = Utils.tile(width, height, pixels);
+            assertArrayEquals(pixels, Utils.untile((short) width, (short) height, tiled));
+            // the untiled image is upside down, so its first pixel is the first of the last tile row
+            assertEquals(0, tiled[(height - 8) * width + 0b101010]);
+            
+            int[] inPlace = pixels.clone();
+            Utils.tileInPlace(width, height, inPlace);
+            assertArrayEquals(tiled, inPlace);
+            Utils.untileInPlace(width, height, inPlace);
+            assertArrayEquals(pixels, inPlace);
+            
+            IntBuffer buffer = IntBuffer.allocate(pixels.length + 4);
+            buffer.position(4);
+            Utils.untile(width, height, IntBuffer.wrap(tiled), buffer);
+            assertEquals(4, buffer.position());
+            assertArrayEquals(pixels, Arrays.copyOfRange(buffer.array(), 4, buffer.capacity()));
+            
+            assertSame(Utils.getTileTable(width, height), Utils.getTileTable(width, height));
+        }
+    }
+    
     /*
-     * TODO public static int[] untile(short width, short height, int[] pixelData) {
-     * TODO public static int[] tile(int width, int height, int[] pixelData) {
      * TODO private static int getMortonOffset(int x, int y) {
      */
 }
@@ -0,0 +1,37 @@
+package net.digimonworld.decodetools.res;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class PayloadCacheTests {
+    
+    @Test
+    public void testCache() {
+        PayloadCache<int[]> cache = new PayloadCache<>(40, a -> a.length * 4L);
+        
+        int[] first = cache.get(new byte[] { 1, 2, 3, 4 }, "A", a -> new int[4]);
+        assertSame(first, cache.get(new byte[] { 1, 2, 3, 4 }, "A", a -> new int[4])); // same content, different array
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        
+        // the variant is part of the key
+        cache.get(new byte[] { 1, 2, 3, 4 }, "B", a -> new int[4]);
+        assertEquals(2, cache.getMisses());
+        assertEquals(40, cache.getWeight());
+        
+        // the least recently used entry gets evicted first
+        cache.get(new byte[] { 1, 2, 3, 4 }, "A", a -> new int[4]);
+        cache.get(new byte[] { 5, 6, 7, 8 }, "A", a -> new int[4]);
+        assertEquals(1, cache.getEvictions());
+        assertEquals(40, cache.getWeight());
+        assertSame(first, cache.get(new byte[] { 1, 2, 3, 4 }, "A", a -> new int[4]));
+        assertEquals(3, cache.getMisses());
+        
+        // too heavy values don't get cached
+        cache.get(new byte[4], "A", a -> new int[16]);
+        cache.get(new byte[4], "A", a -> new int[16]);
+        assertEquals(5, cache.getMisses());
+    }
+}
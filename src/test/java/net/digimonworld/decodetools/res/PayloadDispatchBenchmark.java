@@ -0,0 +1,80 @@
+package net.digimonworld.decodetools.res;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.digimonworld.decodetools.res.ResPayload.Payload;
+import net.digimonworld.decodetools.res.kcap.AbstractKCAP.KCAPType;
+
+/**
+ * Compares the magic value dispatch of {@link Payload#valueOf} and {@link KCAPType#valueOf(int)}
+ * with the linear search over {@code values()} they used before.
+ * <p>
+ * Not a unit test, run it through {@code org.openjdk.jmh.Main} on the test classpath.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PayloadDispatchBenchmark {
+    // the first 8 bytes of common payloads, plus one without magic value
+    private final long[] payloadValues = { 0x5041434BL, 0x4F494D47L, 0x4F565458L, 0x4F494458L, 0x20585442L << 32 | 0x120,
+            0x48444150L, 0x12345678L };
+    private final int[] kcapValues = { 0x50494D47, 0x504D5348, 0x50565458, 0x50494458, 0x4A4F4E54, 0x00000000 };
+    
+    @Benchmark
+    public void payloadTable(Blackhole hole) {
+        for (long value : payloadValues)
+            hole.consume(Payload.valueOf(null, value));
+    }
+    
+    @Benchmark
+    public void payloadLinear(Blackhole hole) {
+        for (long value : payloadValues)
+            hole.consume(linearPayload(value));
+    }
+    
+    @Benchmark
+    public void kcapTable(Blackhole hole) {
+        for (int value : kcapValues)
+            hole.consume(KCAPType.valueOf(value));
+    }
+    
+    @Benchmark
+    public void kcapLinear(Blackhole hole) {
+        for (int value : kcapValues)
+            hole.consume(linearKCAPType(value));
+    }
+    
+    private static Payload linearPayload(long value) {
+        int left = (int) (value >>> 32);
+        int right = (int) (value & 0xFFFFFFFF);
+        
+        for (Payload extension : Payload.values())
+            if (extension.getMagicValue() != 0 && extension.getMagicValue() == right)
+                return extension;
+            
+        return left == Payload.BTX.getMagicValue() ? Payload.BTX : Payload.GENERIC;
+    }
+    
+    private static KCAPType linearKCAPType(int value) {
+        for (KCAPType type : KCAPType.values())
+            if (type.getMagicValue() == value)
+                return type;
+            
+        return KCAPType.NONE;
+    }
+}
@@ -0,0 +1,56 @@
+package net.digimonworld.decodetools.res;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import org.junit.Test;
+
+public class ResDataTests {
+    
+    private static void testDedupe(IResData data) {
+        byte[] first = new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9 };
+        byte[] second = new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 10 };
+        
+        int firstAddress = data.add(first, true);
+        int secondAddress = data.add(second, true);
+        
+        assertEquals(0, firstAddress);
+        assertEquals(0x80, secondAddress);
+        assertEquals(firstAddress, data.add(first.clone(), true));
+        assertEquals(secondAddress, data.add(second.clone(), true));
+        assertNotEquals(firstAddress, data.add(first, false));
+        
+        assertEquals(3, data.getDataEntries());
+        assertEquals(0x109, data.getSize());
+        assertEquals(2, data.getDedupeHits());
+        assertEquals(18, data.getDedupeSavedBytes());
+    }
+    
+    @Test
+    public void testResDataDedupe() {
+        try (ResData data = new ResData()) {
+            testDedupe(data);
+            
+            try (ResData child = new ResData(data)) {
+                child.add(new byte[4], true);
+                child.add(new byte[4], true);
+                data.add(child);
+            }
+            
+            assertEquals(3, data.getDedupeHits());
+        }
+    }
+    
+    @Test
+    public void testDummyResDataDedupe() {
+        DummyResData data = new DummyResData();
+        testDedupe(data);
+        
+        DummyResData child = new DummyResData(data);
+        child.add(new byte[4], true);
+        child.add(new byte[4], true);
+        data.add(child);
+        
+        assertEquals(3, data.getDedupeHits());
+    }
+}
@@ -0,0 +1,61 @@
+package net.digimonworld.decodetools.res;
+
+import static net.digimonworld.decodetools.TestUtils.createTempFile;
+import static net.digimonworld.decodetools.TestUtils.readResource;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.Test;
+
+import net.digimonworld.decodetools.core.GrowableBufferAccess;
+import net.digimonworld.decodetools.core.StreamAccess;
+import net.digimonworld.decodetools.res.ResPayload.Payload;
+import net.digimonworld.decodetools.res.payload.BTXPayload;
+
+public class ResPatchTests {
+    
+    @Test
+    public void testPatch() throws IOException {
+        byte[] arr = readResource("/LanguageKeep_jp.res");
+        
+        File expected = createTempFile("expected", ".res");
+        File patched = createTempFile("patched", ".res");
+        
+        try (StreamAccess access = new StreamAccess(arr); GrowableBufferAccess patch = new GrowableBufferAccess()) {
+            ResPayload modified = ResPayload.craft(access);
+            BTXPayload btx = (BTXPayload) modified.getElementsWithType(Payload.BTX).get(1);
+            btx.getEntries().get(0).getValue().setString("patched");
+            modified.repack(expected);
+            
+            // only the changed text gets replaced
+            assertEquals(1, ResPatch.createPatch(access, modified, patch));
+            assertTrue(patch.getSize() < arr.length);
+            
+            patch.setPosition(0);
+            ResPayload result = ResPatch.applyPatch(access, patch);
+            
+            // the replaced text keeps its index as file id
+            assertEquals(btx.getFileId(), ((BTXPayload) result.getElementsWithType(Payload.BTX).get(1)).getFileId());
+            result.repack(patched);
+            assertArrayEquals(Files.readAllBytes(expected.toPath()), Files.readAllBytes(patched.toPath()));
+        }
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongFile() throws IOException {
+        byte[] arr = readResource("/LanguageKeep_jp.res");
+        
+        try (StreamAccess access = new StreamAccess(arr); GrowableBufferAccess patch = new GrowableBufferAccess()) {
+            ResPatch.createPatch(access, ResPayload.craft(access), patch);
+            
+            arr[arr.length - 1]++;
+            patch.setPosition(0);
+            ResPatch.applyPatch(access, patch);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package net.digimonworld.decodetools.res.kcap;
+
+import static net.digimonworld.decodetools.TestUtils.createTempFile;
+import static net.digimonworld.decodetools.TestUtils.readResource;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import net.digimonworld.decodetools.core.StreamAccess;
+import net.digimonworld.decodetools.res.ResPayload;
+import net.digimonworld.decodetools.res.ResPayload.Payload;
+import net.digimonworld.decodetools.res.kcap.AbstractKCAP.KCAPType;
+import net.digimonworld.decodetools.res.payload.BTXPayload;
+import net.digimonworld.decodetools.res.payload.GMIOPayload;
+import net.digimonworld.decodetools.res.payload.GenericPayload;
+import net.digimonworld.decodetools.res.payload.XDIOPayload;
+import net.digimonworld.decodetools.res.payload.xdio.XDIOFace;
+
+public class KCAPTests {
+    
+    @Test
+    public void testLayoutInvalidation() {
+        GenericPayload first = new GenericPayload(null, new byte[4]);
+        GenericPayload second = new GenericPayload(null, new byte[4]);
+        NormalKCAP child = new NormalKCAP(null, Arrays.asList(first, second), true, false);
+        NormalKCAP root = new NormalKCAP(null, Arrays.asList(child), true, false);
+        first.setParent(child);
+        second.setParent(child);
+        child.setParent(root);
+        
+        assertEquals(0x44, child.getSize());
+        assertEquals(0x74, root.getSizeOfRoot());
+        
+        // changing a payload invalidates the memoized sizes of all its parents
+        second.setData(new byte[8]);
+        assertEquals(0x48, child.getSize());
+        assertEquals(0x78, root.getSizeOfRoot());
+    }
+    
+    @Test
+    public void testTypeIndex() {
+        GMIOPayload image = new GMIOPayload(null);
+        GMIPKCAP gmip = new GMIPKCAP(null, List.of(image));
+        GenericPayload generic = new GenericPayload(null, new byte[4]);
+        NormalKCAP root = new NormalKCAP(null, Arrays.asList(gmip, generic), true, false);
+        image.setParent(gmip);
+        gmip.setParent(root);
+        generic.setParent(root);
+        
+        assertEquals(List.of(root, gmip), root.getElementsWithType(Payload.KCAP));
+        assertEquals(List.of(image), root.getElementsWithType(Payload.GMIO));
+        assertEquals(List.of(generic), root.getElementsWithType(Payload.GENERIC));
+        assertEquals(List.of(), root.getElementsWithType(Payload.BTX));
+        assertEquals(List.of(gmip), root.getKCAPsWithType(KCAPType.GMIP));
+        assertEquals(List.of(root), root.getKCAPsWithType(KCAPType.NONE));
+        assertEquals(1, root.streamElementsWithType(Payload.GMIO).count());
+        
+        // changing the size of an entry keeps the index
+        List<ResPayload> images = root.getElementsWithType(Payload.GMIO);
+        generic.setData(new byte[8]);
+        assertSame(images, root.getElementsWithType(Payload.GMIO));
+        
+        // modifying a KCAP updates the index of all its parents
+        GMIOPayload second = new GMIOPayload(null);
+        gmip.add(second);
+        assertEquals(List.of(image, second), root.getElementsWithType(Payload.GMIO));
+        assertEquals(List.of(image, second), gmip.getElementsWithType(Payload.GMIO));
+    }
+    
+    @Test
+    public void testMagicValueLookup() {
+        for (KCAPType type : KCAPType.values())
+            assertEquals(type, KCAPType.valueOf(type.getMagicValue()));
+        assertEquals(KCAPType.NONE, KCAPType.valueOf(0x12345678));
+        
+        for (Payload type : Payload.values())
+            if (type.getMagicValue() != 0)
+                assertEquals(type, Payload.valueOf(null, type.getMagicValue()));
+        assertEquals(Payload.BTX, Payload.valueOf(null, (long) Payload.BTX.getMagicValue() << 32 | 0x120));
+        assertEquals(Payload.GENERIC, Payload.valueOf(null, 0x12345678L));
+        assertEquals(Payload.GENERIC, Payload.valueOf(null, 0L));
+    }
+    
+    @Test
+    public void testParallelCraft() throws IOException {
+        byte[] arr = readResource("/LanguageKeep_jp.res");
+        
+        File file = createTempFile("parallel", ".res");
+        
+        try (StreamAccess access = new StreamAccess(ByteBuffer.wrap(arr))) {
+            ResPayload res = ResPayload.craftParallel(access);
+            
+            res.repack(file);
+            assertArrayEquals(arr, Files.readAllBytes(file.toPath()));
+            
+            // entries keep their order and BTX their index as file id, no matter in which order they got crafted
+            int btxCount = 0;
+            for (AbstractKCAP kcap : res.getKCAPsWithType(KCAPType.NONE)) {
+                List<ResPayload> entries = kcap.getEntries();
+                
+                for (int i = 0; i < entries.size(); i++)
+                    if (entries.get(i) instanceof BTXPayload) {
+                        assertEquals(i, ((BTXPayload) entries.get(i)).getFileId());
+                        btxCount++;
+                    }
+            }
+            assertEquals(res.getElementsWithType(Payload.BTX).size(), btxCount);
+        }
+    }
+    
+    @Test
+    public void testParallelWrite() throws IOException {
+        List<XDIOPayload> entries = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            List<XDIOFace> faces = new ArrayList<>();
+            for (int j = 0; j < 10 + i; j++)
+                faces.add(new XDIOFace(j * i * 30, j * i * 30 + 1, j));
+            entries.add(new XDIOPayload(null, faces, (short) 0x3001, (short) i, 5));
+        }
+        XDIPKCAP xdip = new XDIPKCAP(null, entries);
+        entries.forEach(a -> a.setParent(xdip));
+        
+        File file = createTempFile("parallel", ".res");
+        xdip.repack(file);
+        byte[] arr = Files.readAllBytes(file.toPath());
+        
+        try (StreamAccess access = new StreamAccess(arr)) {
+            XDIPKCAP res = (XDIPKCAP) ResPayload.craft(access);
+            for (int i = 0; i < entries.size(); i++) {
+                List<XDIOFace> expected = entries.get(i).getFaces();
+                List<XDIOFace> actual = res.get(i).getFaces();
+                assertEquals(expected.size(), actual.size());
+                for (int j = 0; j < expected.size(); j++)
+                    assertEquals(expected.get(j).getVert1(), actual.get(j).getVert1());
+            }
+            
+            // the concurrently prepared data gets merged in the same order as when written sequentially
+            res.markModified();
+            res.repack(file);
+            assertArrayEquals(arr, Files.readAllBytes(file.toPath()));
+        }
+    }
+}
@@ -1,11 +1,17 @@
 package net.digimonworld.decodetools.res.payload;
 
+import static net.digimonworld.decodetools.TestUtils.createTempFile;
+import static net.digimonworld.decodetools.TestUtils.readResource;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.file.Files;
 import java.util.List;
 
 import org.junit.Test;
@@ -13,6 +19,7 @@ import org.junit.Test;
 import net.digimonworld.decodetools.core.StreamAccess;
 import net.digimonworld.decodetools.core.Tuple;
 import net.digimonworld.decodetools.res.ResPayload;
+import net.digimonworld.decodetools.res.ResPayload.Payload;
 import net.digimonworld.decodetools.res.payload.BTXPayload;
 import net.digimonworld.decodetools.res.payload.BTXPayload.BTXEntry;
 
@@ -72,6 +79,25 @@ public class BTXPayloadTest {
         }
     }
     
+    @Test
+    public void testLazyRepack() throws IOException {
+        byte[] arr = readResource("/LanguageKeep_jp.res");
+        
+        File file = createTempFile("lazy", ".res");
+        
+        try (StreamAccess access = new StreamAccess(ByteBuffer.wrap(arr))) {
+            ResPayload res = ResPayload.craft(access);
+            
+            // untouched BTX are written back as they were read
+            res.repack(file);
+            assertArrayEquals(arr, Files.readAllBytes(file.toPath()));
+            
+            // they only get parsed on first access
+            BTXPayload btx = (BTXPayload) res.getElementsWithType(Payload.BTX).get(0);
+            assertFalse(btx.getEntries().isEmpty());
+        }
+    }
+    
     private void testBTX(InputStream in, String[] compare, String suffix, boolean hasMeta) throws IOException {
         byte[] arr = new byte[in.available()];
         in.read(arr);
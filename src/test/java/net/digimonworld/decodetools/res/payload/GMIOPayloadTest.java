@@ -0,0 +1,105 @@
+package net.digimonworld.decodetools.res.payload;
+
+import static net.digimonworld.decodetools.TestUtils.createTempFile;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import net.digimonworld.decodetools.PixelFormat;
+import net.digimonworld.decodetools.core.StreamAccess;
+import net.digimonworld.decodetools.res.ResPayload;
+import net.digimonworld.decodetools.res.kcap.GMIPKCAP;
+
+public class GMIOPayloadTest {
+    
+    private static BufferedImage createImage() {
+        BufferedImage image = new BufferedImage(8, 8, BufferedImage.TYPE_INT_ARGB);
+        for (int x = 0; x < 8; x++)
+            for (int y = 0; y < 8; y++)
+                image.setRGB(x, y, 0xFF000000 | x << 16 | y << 8);
+        
+        return image;
+    }
+    
+    private static BufferedImage createNoise() {
+        BufferedImage image = new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB);
+        Random random = new Random(0);
+        for (int x = 0; x < 16; x++)
+            for (int y = 0; y < 16; y++)
+                image.setRGB(x, y, 0xFF000000 | random.nextInt(0x1000000));
+        
+        return image;
+    }
+    
+    private static byte[] write(BufferedImage image, PixelFormat format, File file) throws IOException {
+        GMIOPayload gmio = new GMIOPayload(null);
+        gmio.setFormat(format);
+        gmio.setImage(image);
+        GMIPKCAP gmip = new GMIPKCAP(null, List.of(gmio));
+        gmio.setParent(gmip);
+        
+        gmip.repack(file);
+        return Files.readAllBytes(file.toPath());
+    }
+    
+    private static void fill(BufferedImage image) {
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, image.getWidth(), image.getHeight());
+        g.dispose();
+    }
+    
+    @Test
+    public void testSharedContent() throws IOException {
+        BufferedImage image = createImage();
+        File file = createTempFile("gmio", ".res");
+        byte[] arr = write(image, PixelFormat.RGBA8, file);
+        
+        // two files with the same texture, decoded only once through the texture cache
+        try (StreamAccess first = new StreamAccess(arr); StreamAccess second = new StreamAccess(arr)) {
+            fill(((GMIPKCAP) ResPayload.craft(first)).get(0).getImage());
+            
+            BufferedImage other = ((GMIPKCAP) ResPayload.craft(second)).get(0).getImage();
+            for (int x = 0; x < 8; x++)
+                for (int y = 0; y < 8; y++)
+                    assertEquals(image.getRGB(x, y), other.getRGB(x, y));
+        }
+    }
+    
+    @Test
+    public void testModifiedImage() throws IOException {
+        File file = createTempFile("gmio", ".res");
+        byte[] arr = write(createNoise(), PixelFormat.ETC1, file);
+        
+        try (StreamAccess access = new StreamAccess(arr)) {
+            GMIPKCAP gmip = (GMIPKCAP) ResPayload.craft(access);
+            
+            // only looking at a lossy texture doesn't encode it again
+            gmip.get(0).getImage();
+            gmip.repack(file);
+            assertArrayEquals(arr, Files.readAllBytes(file.toPath()));
+            
+            // drawing into it does, once it's marked as modified
+            fill(gmip.get(0).getImage());
+            gmip.get(0).markModified();
+            gmip.repack(file);
+        }
+        
+        try (StreamAccess access = new StreamAccess(Files.readAllBytes(file.toPath()))) {
+            BufferedImage image = ((GMIPKCAP) ResPayload.craft(access)).get(0).getImage();
+            for (int x = 0; x < 16; x++)
+                for (int y = 0; y < 16; y++)
+                    assertEquals(0xFFFFFFFF, image.getRGB(x, y));
+        }
+    }
+}
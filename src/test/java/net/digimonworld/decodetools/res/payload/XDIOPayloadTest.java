@@ -0,0 +1,72 @@
+package net.digimonworld.decodetools.res.payload;
+
+import static net.digimonworld.decodetools.TestUtils.createTempFile;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import net.digimonworld.decodetools.core.GrowableBufferAccess;
+import net.digimonworld.decodetools.core.StreamAccess;
+import net.digimonworld.decodetools.res.ResData;
+import net.digimonworld.decodetools.res.ResPayload;
+import net.digimonworld.decodetools.res.payload.xdio.XDIOFace;
+
+public class XDIOPayloadTest {
+    
+    @Test
+    public void testPassthrough() throws IOException {
+        // a root XDIO with three faces, stored with 2 byte indices although 1 byte would suffice
+        ByteBuffer buff = ByteBuffer.allocate(0x80 + 9 * 2).order(ByteOrder.LITTLE_ENDIAN);
+        buff.putInt(ResPayload.Payload.XDIO.getMagicValue()).putInt(2).putShort((short) 0x3001).putShort((short) 3).putInt(0);
+        buff.putInt(9).putInt(2).putInt(9 * 2).putInt(5);
+        buff.position(0x80);
+        for (int i = 0; i < 9; i++)
+            buff.putShort((short) i);
+        byte[] input = buff.array();
+        
+        File file = createTempFile("xdio", ".res");
+        
+        try (StreamAccess access = new StreamAccess(input)) {
+            XDIOPayload xdio = (XDIOPayload) ResPayload.craft(access);
+            assertEquals(3, xdio.getFaces().size());
+            assertEquals(8, xdio.getFaces().get(2).getVert3().intValue());
+            
+            // unmodified, the original data is written back even after being decoded
+            xdio.repack(file);
+            assertArrayEquals(input, Files.readAllBytes(file.toPath()));
+            
+            // modified, it gets encoded again, using the smallest fitting index size
+            xdio.markModified();
+            xdio.repack(file);
+            byte[] output = Files.readAllBytes(file.toPath());
+            assertEquals(0x80 + 9, output.length);
+            assertEquals(1, ByteBuffer.wrap(output).order(ByteOrder.LITTLE_ENDIAN).getInt(0x14));
+        }
+    }
+    
+    @Test
+    public void testModifiedAfterPrepare() throws IOException {
+        List<XDIOFace> faces = new ArrayList<>(List.of(new XDIOFace(0, 1, 2)));
+        XDIOPayload xdio = new XDIOPayload(null, faces, (short) 0x3001, (short) 0, 0);
+        
+        // a write that fails after prepareWrite leaves the prepared data behind
+        xdio.prepareWrite();
+        xdio.getFaces().add(new XDIOFace(3, 4, 5));
+        xdio.markModified();
+        
+        // writes that don't prepare, like exporting a single entry, must encode the modified faces
+        try (GrowableBufferAccess dest = new GrowableBufferAccess(); ResData data = new ResData()) {
+            xdio.writeKCAP(dest, data);
+            assertEquals(6, dest.readInteger(0x18));
+        }
+    }
+}